@@ -0,0 +1,22 @@
+package chess;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// ponto de entrada do benchmarks.jar: aceita as mesmas opções de linha de
+// comando do JMH e sempre inclui o GCProfiler, para que cada resultado traga
+// a taxa de alocação por operação (gc.alloc.rate.norm):
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        Options cli = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+            .parent(cli)
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
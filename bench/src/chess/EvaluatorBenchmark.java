@@ -0,0 +1,59 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.engine.Evaluator;
+
+// avaliações estáticas por segundo: a chamada isolada na posição, e a
+// avaliação de cada filho (doMove, evaluate, undoMove), que mede também o
+// custo da atualização incremental das somas de peça-casa:
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluatorBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    private ChessMatch chessMatch;
+    private int[] moves = new int[Move.MAX_MOVES];
+    private int count;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        chessMatch = position.equals("start") ? new ChessMatch() : Positions.play(Positions.MIDDLEGAME);
+        count = chessMatch.generateLegalMoves(moves);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Evaluator.evaluate(chessMatch);
+    }
+
+    @Benchmark
+    public int evaluateChildren() {
+        int sum = 0;
+        for (int i=0; i < count; i++) {
+            chessMatch.doMove(moves[i]);
+            sum += Evaluator.evaluate(chessMatch);
+            chessMatch.undoMove();
+        }
+        return sum;
+    }
+}
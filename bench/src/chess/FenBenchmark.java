@@ -0,0 +1,48 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// leitura e escrita de FEN: partida nova por posição, recarga de uma mesma
+// partida (leitura em lote) e serialização da posição atual:
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @State(Scope.Thread)
+    public static class Buffers {
+        ChessMatch chessMatch = new ChessMatch(KIWIPETE);
+        StringBuilder sb = new StringBuilder(96);
+    }
+
+    @Benchmark
+    public ChessMatch newMatch() {
+        return new ChessMatch(KIWIPETE);
+    }
+
+    @Benchmark
+    public ChessMatch loadFen(Buffers b) {
+        b.chessMatch.loadFen(KIWIPETE);
+        return b.chessMatch;
+    }
+
+    @Benchmark
+    public StringBuilder appendFen(Buffers b) {
+        b.sb.setLength(0);
+        return Fen.append(b.chessMatch, b.sb);
+    }
+}
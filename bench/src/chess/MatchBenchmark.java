@@ -0,0 +1,76 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// micro-benchmarks das operações de ChessMatch usadas a cada jogada; a
+// classe fica no pacote 'chess' para acessar testCheck e testCheckMate:
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+
+    @State(Scope.Thread)
+    public static class Matches {
+        ChessMatch middlegame;
+        ChessMatch check;
+        ChessMatch checkMate;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            middlegame = Positions.play(Positions.MIDDLEGAME);
+            check = Positions.play(Positions.CHECK);
+            checkMate = Positions.play(Positions.CHECKMATE);
+        }
+    }
+
+    // uma partida por execução, devolvida à posição inicial com undo() a
+    // cada invocação:
+    @State(Scope.Thread)
+    public static class StartMatch {
+        ChessMatch chessMatch;
+        ChessPosition source = new ChessPosition('e', 2);
+        ChessPosition target = new ChessPosition('e', 4);
+
+        @Setup(Level.Trial)
+        public void setup() {
+            chessMatch = new ChessMatch();
+        }
+    }
+
+    @Benchmark
+    public boolean testCheckMiddlegame(Matches m) {
+        return m.middlegame.testCheck(m.middlegame.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public boolean testCheckMateInCheck(Matches m) {
+        return m.check.testCheckMate(m.check.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public boolean testCheckMateMated(Matches m) {
+        return m.checkMate.testCheckMate(Color.BLACK);
+    }
+
+    // o tempo medido inclui o undo(), que restaura a posição e o Snapshot:
+    @Benchmark
+    public ChessPiece performChessMove(StartMatch m) {
+        ChessPiece captured = m.chessMatch.performChessMove(m.source, m.target);
+        m.chessMatch.undo();
+        return captured;
+    }
+}
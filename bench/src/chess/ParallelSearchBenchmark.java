@@ -0,0 +1,54 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.engine.ParallelSearch;
+import chess.engine.TranspositionTable;
+
+// tempo até a profundidade da busca Lazy SMP com 1, 2, 4 e 8 threads; o
+// ganho é a razão entre o tempo com 1 thread e o tempo com N threads. A
+// tabela é limpa antes de cada busca para que nenhuma aproveite a anterior:
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSearchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"6"})
+    public int depth;
+
+    private ParallelSearch search;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        search = new ParallelSearch(Positions.play(Positions.MIDDLEGAME), new TranspositionTable(64), threads);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        search.getTable().clear();
+    }
+
+    @Benchmark
+    public int timeToDepth() {
+        return search.search(depth, 0).getBestMove();
+    }
+}
@@ -0,0 +1,60 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// perft a partir da posição inicial e de uma posição de meio-jogo; o contador
+// auxiliar 'nodes' é reportado em nós por segundo:
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PerftBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    @Param({"4"})
+    public int depth;
+
+    private Perft perft;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ChessMatch chessMatch = position.equals("start") ? new ChessMatch() : Positions.play(Positions.MIDDLEGAME);
+        perft = new Perft(chessMatch, depth);
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = perft.perft(depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+}
@@ -0,0 +1,30 @@
+package chess;
+
+// posições de referência para os benchmarks, alcançadas a partir da posição
+// inicial com performChessMove (movimentos em coordenadas, como "e2e4"):
+final class Positions {
+
+    // abertura italiana após alguns lances, com peças desenvolvidas:
+    static final String[] MIDDLEGAME = {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "c2c3", "g8f6", "d2d4", "e5d4", "c3d4", "c5b4", "b1c3", "f6e4"};
+
+    // pretas em cheque sem mate (1.e4 f5 2.Qh5+):
+    static final String[] CHECK = {"e2e4", "f7f5", "d1h5"};
+
+    // mate do pastor, com as pretas em cheque-mate:
+    static final String[] CHECKMATE = {"e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6", "h5f7"};
+
+    private Positions() {
+    }
+
+    static ChessMatch play(String... moves) {
+        ChessMatch chessMatch = new ChessMatch();
+        for (String m : moves) {
+            chessMatch.performChessMove(position(m, 0), position(m, 2));
+        }
+        return chessMatch;
+    }
+
+    private static ChessPosition position(String move, int offset) {
+        return new ChessPosition(move.charAt(offset), move.charAt(offset + 1) - '0');
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.engine.Search;
+
+// buscas completas até a profundidade por segundo (o inverso do tempo até a
+// profundidade), com os nós por segundo no contador auxiliar 'nodes':
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    @Param({"5"})
+    public int depth;
+
+    private Search search;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ChessMatch chessMatch = position.equals("start") ? new ChessMatch() : Positions.play(Positions.MIDDLEGAME);
+        search = new Search(chessMatch);
+    }
+
+    @Benchmark
+    public int timeToDepth(Nodes counter) {
+        int best = search.search(depth, 0).getBestMove();
+        counter.nodes += search.getNodes();
+        return best;
+    }
+}
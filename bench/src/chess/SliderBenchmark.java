@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// geração de ataques das peças deslizantes: Torre e Bispo em todas as 64
+// casas com ocupações pseudo-aleatórias fixas (uma operação = 64 * 2
+// consultas), e os movimentos de Torres, Bispos e Rainhas da posição de
+// meio-jogo, pelo gerador das próprias peças:
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SliderBenchmark {
+
+    private static final Color[] COLORS = Color.values();
+
+    private long[] occupancies = new long[64];
+    private ChessBoard board;
+    private int[] moves = new int[Move.MAX_MOVES];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // ocupações esparsas, como as de uma partida (cerca de um quarto das
+        // casas):
+        long seed = 0x536C69646572L;
+        for (int i=0; i < occupancies.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            long a = seed;
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            occupancies[i] = a & seed;
+        }
+        board = Positions.play(Positions.MIDDLEGAME).getBoard();
+    }
+
+    @Benchmark
+    public long attacks() {
+        long sum = 0L;
+        for (int sq=0; sq < 64; sq++) {
+            sum ^= Bitboards.rookAttacks(sq, occupancies[sq]) ^ Bitboards.bishopAttacks(sq, occupancies[sq]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int sliderMoves() {
+        int count = 0;
+        for (Color color : COLORS) {
+            long sliders = board.pieces(color, PieceType.ROOK) | board.pieces(color, PieceType.BISHOP) | board.pieces(color, PieceType.QUEEN);
+            for (long b = sliders; b != 0; b &= b - 1) {
+                count = board.piece(Long.numberOfTrailingZeros(b)).generateMoves(moves, 0);
+            }
+        }
+        return count;
+    }
+}
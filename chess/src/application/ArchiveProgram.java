@@ -0,0 +1,77 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.archive.GameArchiveReader;
+import chess.archive.GameArchiveWriter;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+
+// arquivo binário de partidas: "ArchiveProgram convert <partidas.pgn>
+// <arquivo.bin>" grava as partidas válidas do PGN, e "ArchiveProgram replay
+// <arquivo.bin> [--fast]" repete todas as partidas, informando a vazão (com
+// --fast, apenas com doMove, sem os testes de fim de jogo):
+public class ArchiveProgram {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || (args[0].equals("convert") && args.length < 3)) {
+            System.out.println("Usage: ArchiveProgram convert <games.pgn> <archive.bin>");
+            System.out.println("       ArchiveProgram replay <archive.bin> [--fast]");
+            return;
+        }
+        long start = System.nanoTime();
+        if (args[0].equals("convert")) {
+            Path pgn = Paths.get(args[1]);
+            Path archive = Paths.get(args[2]);
+            long skipped = 0;
+            try (PgnReader reader = new PgnReader(pgn); GameArchiveWriter writer = new GameArchiveWriter(archive)) {
+                PgnGame game;
+                while ((game = reader.next()) != null) {
+                    if (!game.isValid()) {
+                        System.out.println("Skipped game " + reader.getGames() + ": " + game.getError());
+                        skipped++;
+                        continue;
+                    }
+                    writer.write(game);
+                }
+                System.out.println(writer.getGames() + " games (" + skipped + " skipped), " + writer.getPlies() + " plies, "
+                    + ((System.nanoTime() - start) / 1_000_000) + " ms");
+            }
+            long pgnSize = Files.size(pgn);
+            long archiveSize = Files.size(archive);
+            System.out.println(pgnSize + " -> " + archiveSize + " bytes (" + (archiveSize > 0 ? pgnSize / archiveSize : 0) + "x smaller)");
+            return;
+        }
+
+        boolean fast = args.length > 2 && args[2].equals("--fast");
+        ChessMatch chessMatch = new ChessMatch();
+        long plies = 0;
+        long invalid = 0;
+        try (GameArchiveReader reader = new GameArchiveReader(Paths.get(args[1]))) {
+            while (reader.next()) {
+                try {
+                    if (fast) {
+                        reader.replayMoves(chessMatch);
+                    }
+                    else {
+                        reader.replay(chessMatch);
+                    }
+                }
+                catch (ChessException e) {
+                    System.out.println(e.getMessage());
+                    invalid++;
+                }
+                plies += reader.getPlies();
+            }
+            long nanos = System.nanoTime() - start;
+            long gamesPerSecond = (nanos > 0) ? reader.getGames() * 1_000_000_000L / nanos : 0;
+            System.out.println(reader.getGames() + " games (" + invalid + " invalid), " + plies + " plies, " + (nanos / 1_000_000) + " ms, "
+                + gamesPerSecond + " games/s");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.book.BookBuilder;
+import chess.book.OpeningBook;
+
+// livro de aberturas: "BookProgram build <livro.bin> <partidas.pgn>...
+// [--plies N]" constrói o livro a partir de arquivos PGN, e "BookProgram
+// probe <livro.bin> [FEN]" lista os movimentos do livro para a posição:
+public class BookProgram {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BookProgram build <book.bin> <games.pgn>... [--plies N]");
+            System.out.println("       BookProgram probe <book.bin> [FEN]");
+            return;
+        }
+        if (args[0].equals("build")) {
+            int plies = 24;
+            for (int i=2; i < args.length; i++) {
+                if (args[i].equals("--plies")) {
+                    plies = Integer.parseInt(args[++i]);
+                }
+            }
+            BookBuilder builder = new BookBuilder(plies);
+            long start = System.nanoTime();
+            for (int i=2; i < args.length; i++) {
+                if (args[i].equals("--plies")) {
+                    i++;
+                    continue;
+                }
+                builder.addGames(Paths.get(args[i]));
+            }
+            long entries = builder.write(Paths.get(args[1]));
+            System.out.println(builder.getGames() + " games, " + builder.getSkipped() + " skipped (invalid FEN), " + builder.getPositions() + " positions, " + entries + " entries, "
+                + ((System.nanoTime() - start) / 1_000_000) + " ms");
+            return;
+        }
+
+        OpeningBook book = new OpeningBook(Paths.get(args[1]));
+        ChessMatch chessMatch = (args.length > 2) ? new ChessMatch(String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length))) : new ChessMatch();
+        int[] moves = new int[Move.MAX_MOVES];
+        int[] weights = new int[Move.MAX_MOVES];
+        int count = book.probe(chessMatch, moves, weights);
+        System.out.println(book.getEntries() + " entries, key " + Long.toHexString(OpeningBook.key(chessMatch)));
+        for (int i=0; i < count; i++) {
+            System.out.println(Move.toString(moves[i]) + " " + weights[i]);
+        }
+    }
+}
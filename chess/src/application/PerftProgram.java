@@ -0,0 +1,185 @@
+package application;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Perft;
+import chess.book.OpeningBook;
+
+// comando de perft: "PerftProgram <profundidade> [divide] [--fen <FEN>]" conta
+// os nós a partir da posição inicial ou da FEN informada, e "PerftProgram
+// verify [profundidade]" confere as chaves Polyglot de referência, as regras
+// de empate, as contagens conhecidas, o hash Zobrist e as somas de peça-casa
+// incrementais, falhando com exceção em caso de divergência:
+public class PerftProgram {
+
+    // posições de referência (inicial, "Kiwipete" e as posições 3 a 6 da
+    // wiki de programação de xadrez) e suas contagens, indexadas pela
+    // profundidade:
+    private static final String[] POSITIONS = {
+        Fen.START_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    };
+    private static final long[][] COUNTS = {
+        {1L, 20L, 400L, 8902L, 197281L, 4865609L, 119060324L},
+        {1L, 48L, 2039L, 97862L, 4085603L, 193690690L},
+        {1L, 14L, 191L, 2812L, 43238L, 674624L, 11030083L},
+        {1L, 6L, 264L, 9467L, 422333L, 15833292L},
+        {1L, 44L, 1486L, 62379L, 2103487L, 89941194L},
+        {1L, 46L, 2079L, 89890L, 3894594L, 164075551L}
+    };
+
+    // posições de teste da especificação do Polyglot (a inicial e as
+    // seguintes a 1.e4 d5 2.e5 f5 3.Ke2 Kf7 e a 1.a4 b5 2.h4 b4 3.c4 bxc3
+    // 4.Ra3) e suas chaves de livro publicadas, que conferem Zobrist:
+    private static final String[] POLYGLOT_POSITIONS = {
+        Fen.START_POSITION,
+        "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+        "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+        "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3",
+        "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+        "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3",
+        "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4"
+    };
+    // ida e volta dos Cavalos das duas cores, que repete a posição inicial
+    // a cada quatro meios-lances:
+    private static final String[] KNIGHT_SHUFFLE = { "g1f3", "b8c6", "f3g1", "c6b8" };
+
+    private static final long[] POLYGLOT_KEYS = {
+        0x463B96181691FC9CL, 0x823C9B50FD114196L, 0x0756B94461C50FB0L,
+        0x662FAFB965DB29D4L, 0x22A48B5A8E47FF78L, 0x652A607CA3F242C1L,
+        0x00FDD303C946BDD9L, 0x3C8123EA7B067637L, 0x5C3F9B829B279560L
+    };
+
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("verify")) {
+            int maxDepth = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+            verify(maxDepth);
+            return;
+        }
+
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        boolean divide = false;
+        String fen = Fen.START_POSITION;
+        for (int i=1; i < args.length; i++) {
+            if (args[i].equals("divide")) divide = true;
+            // a FEN pode vir num único argumento ou nos seus seis campos:
+            if (args[i].equals("--fen")) {
+                fen = String.join(" ", java.util.Arrays.copyOfRange(args, i + 1, args.length));
+                break;
+            }
+        }
+        Perft perft = new Perft(new ChessMatch(fen), depth);
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            StringBuilder sb = new StringBuilder();
+            nodes = perft.divide(depth, sb);
+            System.out.print(sb);
+        }
+        else {
+            nodes = perft.perft(depth);
+        }
+        report(depth, nodes, System.nanoTime() - start);
+    }
+
+    private static void verify(int maxDepth) {
+        for (int p=0; p < POLYGLOT_POSITIONS.length; p++) {
+            long key = OpeningBook.key(new ChessMatch(POLYGLOT_POSITIONS[p]));
+            if (key != POLYGLOT_KEYS[p]) {
+                throw new IllegalStateException("Polyglot key mismatch on " + POLYGLOT_POSITIONS[p] + ": expected "
+                    + Long.toHexString(POLYGLOT_KEYS[p]) + ", got " + Long.toHexString(key) + ".");
+            }
+        }
+        System.out.println("polyglot keys verified on " + POLYGLOT_POSITIONS.length + " positions");
+        verifyDraws();
+        System.out.println("draw rules verified");
+        for (int p=0; p < POSITIONS.length; p++) {
+            ChessMatch chessMatch = new ChessMatch(POSITIONS[p]);
+            System.out.println(POSITIONS[p]);
+            // a FEN lida deve ser escrita de volta sem alteração:
+            if (!chessMatch.toFen().equals(POSITIONS[p])) {
+                throw new IllegalStateException("FEN round trip mismatch: got " + chessMatch.toFen() + ".");
+            }
+            for (int depth=1; depth <= maxDepth && depth < COUNTS[p].length; depth++) {
+                long start = System.nanoTime();
+                long nodes = new Perft(chessMatch, depth).perft(depth);
+                report(depth, nodes, System.nanoTime() - start);
+                if (nodes != COUNTS[p][depth]) {
+                    throw new IllegalStateException("Perft mismatch at depth " + depth + ": expected " + COUNTS[p][depth] + ", got " + nodes + ".");
+                }
+            }
+            // conferência do hash Zobrist e das somas de PieceSquare
+            // incrementais em todos os nós:
+            int keyDepth = Math.min(maxDepth, 3);
+            long nodes = new Perft(chessMatch, keyDepth).perftCheckingKeys(keyDepth);
+            System.out.println("zobrist keys and piece-square scores verified on " + nodes + " leaf nodes");
+        }
+    }
+
+    // repetição (também vista por uma cópia da partida), cinquenta e 75
+    // lances e material insuficiente, como nas regras da FIDE:
+    private static void verifyDraws() {
+        ChessMatch chessMatch = new ChessMatch();
+        shuffleKnights(chessMatch, 1);
+        check(chessMatch.getRepetitionCount() == 1 && chessMatch.isRepetition() && !chessMatch.canClaimDraw(), "first repetition");
+        // a cópia continua a contagem com as posições anteriores a ela:
+        ChessMatch copy = new ChessMatch(chessMatch);
+        check(copy.isRepetition(), "repetition through a copy");
+        shuffleKnights(copy, 1);
+        check(copy.getRepetitionCount() == 2 && copy.canClaimDraw() && !copy.getDraw(), "threefold repetition on a copy");
+        shuffleKnights(chessMatch, 1);
+        check(chessMatch.getRepetitionCount() == 2 && chessMatch.canClaimDraw() && !chessMatch.getDraw(), "threefold repetition");
+        chessMatch.claimDraw();
+        check(chessMatch.getDraw() && !chessMatch.canClaimDraw(), "claimed draw");
+        shuffleKnights(copy, 2);
+        check(copy.getRepetitionCount() == 4 && copy.getDraw(), "fivefold repetition");
+        try {
+            new ChessMatch().claimDraw();
+            throw new IllegalStateException("Draw rule mismatch: claimed a draw in the initial position.");
+        }
+        catch (ChessException e) {
+            // esperado: nada a reclamar:
+        }
+
+        chessMatch = new ChessMatch("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        chessMatch.performChessMove(new ChessPosition('a', 1), new ChessPosition('a', 2));
+        check(chessMatch.isFiftyMoveRule() && chessMatch.canClaimDraw() && !chessMatch.getDraw(), "fifty-move rule");
+        chessMatch = new ChessMatch("4k3/8/8/8/8/8/8/R3K3 w - - 149 100");
+        chessMatch.performChessMove(new ChessPosition('a', 1), new ChessPosition('a', 2));
+        check(chessMatch.isSeventyFiveMoveRule() && chessMatch.getDraw(), "75-move rule");
+
+        check(new ChessMatch("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1").getDraw(), "king and knight against king");
+        check(new ChessMatch("4k3/8/8/8/8/b7/8/2B1K3 w - - 0 1").getDraw(), "bishops on squares of one colour");
+        check(!new ChessMatch("4k3/8/8/8/8/1b6/8/2B1K3 w - - 0 1").getDraw(), "bishops on squares of both colours");
+    }
+
+    // 'times' idas e voltas dos Cavalos a partir da posição inicial:
+    private static void shuffleKnights(ChessMatch chessMatch, int times) {
+        for (int i=0; i < times; i++) {
+            for (String move : KNIGHT_SHUFFLE) {
+                chessMatch.performChessMove(new ChessPosition(move.charAt(0), move.charAt(1) - '0'),
+                    new ChessPosition(move.charAt(2), move.charAt(3) - '0'));
+            }
+        }
+    }
+
+    private static void check(boolean condition, String rule) {
+        if (!condition) {
+            throw new IllegalStateException("Draw rule mismatch: " + rule + ".");
+        }
+    }
+
+    // impressão da contagem com nós por segundo:
+    private static void report(int depth, long nodes, long nanos) {
+        long nps = (nanos > 0) ? nodes * 1_000_000_000L / nanos : 0;
+        System.out.println("depth " + depth + ": " + nodes + " nodes, " + (nanos / 1_000_000) + " ms, " + nps + " nps");
+    }
+}
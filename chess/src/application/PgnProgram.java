@@ -0,0 +1,49 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import chess.pgn.PgnValidator;
+import chess.pgn.Termination;
+
+// validação de arquivos PGN: "PgnProgram <arquivo.pgn> [--threads N]" joga
+// todas as partidas com performChessMove em paralelo, imprime as inválidas
+// com o lance ilegal, conta os finais por tipo e informa a vazão em partidas
+// por segundo:
+public class PgnProgram {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: PgnProgram <file.pgn> [--threads N]");
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i=1; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[i + 1]);
+        }
+
+        PgnValidator validator = new PgnValidator(threads);
+        long[] terminations = new long[Termination.values().length];
+        long start = System.nanoTime();
+        validator.validate(Paths.get(args[0]), result -> {
+            terminations[result.getTermination().ordinal()]++;
+            if (result.getError() != null) {
+                System.out.println(result);
+            }
+            // progresso a cada 100 mil partidas:
+            if (result.getNumber() % 100_000 == 0) {
+                report(validator, System.nanoTime() - start);
+            }
+        });
+        report(validator, System.nanoTime() - start);
+        for (Termination t : Termination.values()) {
+            System.out.println(t + ": " + terminations[t.ordinal()]);
+        }
+    }
+
+    private static void report(PgnValidator validator, long nanos) {
+        long gamesPerSecond = (nanos > 0) ? validator.getGames() * 1_000_000_000L / nanos : 0;
+        System.out.println(validator.getGames() + " games (" + validator.getInvalid() + " invalid), " + validator.getPlies() + " plies, "
+            + (validator.getBytes() >> 20) + " MB, " + (nanos / 1_000_000) + " ms, " + gamesPerSecond + " games/s");
+    }
+}
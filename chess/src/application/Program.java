@@ -1,28 +1,126 @@
 package application;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Random;
 import java.util.Scanner;
 
 import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.Color;
+import chess.Move;
+import chess.book.OpeningBook;
+import chess.engine.Evaluator;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.tablebase.Tablebase;
 
 public class Program {
 
+    // opções: "--computer white|black" para jogar contra o motor de busca,
+    // "--depth N" e "--time MS" para o orçamento de cada jogada do motor e
+    // "--hash MB" para o tamanho da tabela de transposição, "--threads N"
+    // para a busca paralela, "--fen \"<FEN>\"" para começar de outra posição,
+    // "--book arquivo.bin" para o livro de aberturas do motor e "--tb
+    // diretório" para as tabelas de finais:
     public static void main(String[] args) {
 
         Scanner sc = new Scanner(System.in);
-        ChessMatch chessMatch = new ChessMatch();
         List<ChessPiece> captured =  new ArrayList<>();
 
-        while (!chessMatch.getCheckMate()) {
+        Color computer = null;
+        int depth = 64;
+        long time = 3000;
+        int hash = 16;
+        int threads = 1;
+        String fen = null;
+        String bookFile = null;
+        String tablebaseDirectory = null;
+        for (int i=0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--computer")) computer = Color.valueOf(args[i + 1].toUpperCase());
+            if (args[i].equals("--depth")) depth = Integer.parseInt(args[i + 1]);
+            if (args[i].equals("--time")) time = Long.parseLong(args[i + 1]);
+            if (args[i].equals("--hash")) hash = Integer.parseInt(args[i + 1]);
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[i + 1]);
+            if (args[i].equals("--fen")) fen = args[i + 1];
+            if (args[i].equals("--book")) bookFile = args[i + 1];
+            if (args[i].equals("--tb")) tablebaseDirectory = args[i + 1];
+        }
+        OpeningBook book = null;
+        if (bookFile != null) {
+            try {
+                book = new OpeningBook(Paths.get(bookFile));
+            }
+            catch (IOException e) {
+                System.out.println("Could not open opening book: " + e.getMessage());
+            }
+        }
+        Random random = new Random();
+        ChessMatch chessMatch = (fen != null) ? new ChessMatch(fen) : new ChessMatch();
+        ParallelSearch search = new ParallelSearch(chessMatch, new TranspositionTable(hash), threads);
+        if (tablebaseDirectory != null) {
+            try {
+                search.setTablebase(new Tablebase(Paths.get(tablebaseDirectory)));
+            }
+            catch (IOException e) {
+                System.out.println("Could not open tablebases: " + e.getMessage());
+            }
+        }
+        SearchResult lastSearch = null;
+        int[] legalMoves = new int[Move.MAX_MOVES];
+
+        while (!chessMatch.getCheckMate() && !chessMatch.getStaleMate() && !chessMatch.getDraw()) {
             try {
                 UI.clearScreen();
                 UI.printBoard(chessMatch.getPieces());
                 UI.printMatch(chessMatch, captured);
+                if (lastSearch != null) {
+                    UI.printSearchResult(lastSearch);
+                }
+
+                // jogada do computador, que reclama o empate quando pode e
+                // não está em vantagem:
+                if (chessMatch.getCurrentPlayer() == computer) {
+                    if (chessMatch.canClaimDraw() && Evaluator.evaluate(chessMatch) <= 0) {
+                        chessMatch.claimDraw();
+                        continue;
+                    }
+                    // jogada do livro de aberturas, se houver e for legal,
+                    // sem busca:
+                    int move = (book != null) ? legalBookMove(chessMatch, book.pick(chessMatch, random), legalMoves) : 0;
+                    if (move == 0) {
+                        System.out.println("Thinking...");
+                        lastSearch = search.search(depth, time);
+                        move = lastSearch.getBestMove();
+                    }
+                    else {
+                        lastSearch = null;
+                    }
+                    ChessPiece capturedPiece = chessMatch.performChessMove(ChessPosition.fromSquare(Move.from(move)), ChessPosition.fromSquare(Move.to(move)));
+                    if (capturedPiece != null) {
+                        captured.add(capturedPiece);
+                    }
+                    if (chessMatch.getPromoted() != null) {
+                        chessMatch.replacePromotedPiece(UI.promotionType(Move.promotion(move)));
+                    }
+                    continue;
+                }
+
+                // repetição tripla ou cinquenta lances: o empate pode ser
+                // reclamado antes do lance:
+                if (chessMatch.canClaimDraw()) {
+                    System.out.print("Claim draw (Y/N)? ");
+                    if (sc.nextLine().trim().equalsIgnoreCase("Y")) {
+                        chessMatch.claimDraw();
+                        continue;
+                    }
+                }
 
                 System.out.print("Source: ");
                 ChessPosition source = UI.readChessPosition(sc);
@@ -69,4 +167,22 @@ public class Program {
         UI.printBoard(chessMatch.getPieces());
         UI.printMatch(chessMatch, captured);
     }
+
+    // movimento legal correspondente ao do livro (mesmas casas e mesma peça
+    // de promoção), ou 0 se não houver: uma colisão de chaves ou uma entrada
+    // corrompida fazem a jogada recorrer à busca:
+    private static int legalBookMove(ChessMatch chessMatch, int move, int[] legalMoves) {
+        if (move == 0) {
+            return 0;
+        }
+        int count = chessMatch.generateLegalMoves(legalMoves);
+        for (int i=0; i < count; i++) {
+            int legal = legalMoves[i];
+            if (Move.from(legal) == Move.from(move) && Move.to(legal) == Move.to(move) && Move.isPromotion(legal) == Move.isPromotion(move)
+                    && (!Move.isPromotion(legal) || Move.promotion(legal) == Move.promotion(move))) {
+                return legal;
+            }
+        }
+        return 0;
+    }
 }
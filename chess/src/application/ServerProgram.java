@@ -0,0 +1,32 @@
+package application;
+
+import java.io.IOException;
+
+import chess.server.GameServer;
+import chess.server.LatencyHistogram;
+
+// servidor de partidas: "ServerProgram [--port N] [--stats S]" atende
+// conexões locais (protocolo descrito em GameServer) e imprime a cada S
+// segundos as partidas ativas, as conexões e os percentis de latência do
+// tratamento de movimentos:
+public class ServerProgram {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 7777;
+        int stats = 10;
+        for (int i=0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) port = Integer.parseInt(args[i + 1]);
+            if (args[i].equals("--stats")) stats = Integer.parseInt(args[i + 1]);
+        }
+        try (GameServer server = new GameServer(port)) {
+            server.start();
+            System.out.println("Listening on port " + server.getPort());
+            while (true) {
+                Thread.sleep(stats * 1000L);
+                LatencyHistogram latency = server.getMoveLatency();
+                System.out.println(server.getRegistry().size() + " games, " + server.getConnections() + " connections, " + latency.getCount()
+                    + " moves, p50 " + (latency.percentile(50) / 1000) + " us, p99 " + (latency.percentile(99) / 1000) + " us");
+            }
+        }
+    }
+}
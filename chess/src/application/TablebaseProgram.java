@@ -0,0 +1,51 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import chess.ChessMatch;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
+
+// tabelas de finais: "TablebaseProgram generate <diretório> <KQvK>...
+// [--threads N]" gera as tabelas indicadas (e as menores de que dependem), e
+// "TablebaseProgram probe <diretório> [FEN]" consulta uma posição:
+public class TablebaseProgram {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: TablebaseProgram generate <dir> <KQvK>... [--threads N]");
+            System.out.println("       TablebaseProgram probe <dir> [FEN]");
+            return;
+        }
+        if (args[0].equals("generate")) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            for (int i=2; i + 1 < args.length; i++) {
+                if (args[i].equals("--threads")) threads = Integer.parseInt(args[i + 1]);
+            }
+            TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[1]), threads);
+            generator.setListener(System.out::println);
+            for (int i=2; i < args.length; i++) {
+                if (args[i].equals("--threads")) {
+                    i++;
+                    continue;
+                }
+                generator.generate(args[i]);
+            }
+            return;
+        }
+
+        Tablebase tablebase = new Tablebase(Paths.get(args[1]));
+        ChessMatch chessMatch = (args.length > 2) ? new ChessMatch(String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length))) : new ChessMatch();
+        int code = tablebase.probe(chessMatch);
+        if (code == Tablebase.NOT_FOUND) {
+            System.out.println("Not found");
+        }
+        else if (code == Tablebase.DRAW) {
+            System.out.println("Draw");
+        }
+        else {
+            System.out.println((Tablebase.isWin(code) ? "Win" : "Loss") + " in " + Tablebase.distance(code) + " plies");
+        }
+    }
+}
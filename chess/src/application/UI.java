@@ -10,6 +10,8 @@ import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.Color;
+import chess.PieceType;
+import chess.engine.SearchResult;
 
 public class UI {
 
@@ -58,6 +60,22 @@ public class UI {
         }
     }
 
+    // letra de promoção usada em replacePromotedPiece (K para o Cavalo):
+    public static String promotionType(PieceType type) {
+        switch (type) {
+            case BISHOP: return "B";
+            case KNIGHT: return "K";
+            case ROOK: return "R";
+            default: return "Q";
+        }
+    }
+
+    // estatísticas da última busca do computador (profundidade, nós por
+    // segundo e tempo até a profundidade):
+    public static void printSearchResult(SearchResult result) {
+        System.out.println(ANSI_BOLD + ANSI_PURPLE + "Computer: " + ANSI_RESET + result);
+    }
+
     // impressão da jogada, da cor do jogador corrente e de peças capturadas:
     public static void printMatch(ChessMatch chessMatch, List<ChessPiece> captured) {
         // peças capturadas:
@@ -67,8 +85,9 @@ public class UI {
         // barra de jogada (turno):
         System.out.println(ANSI_BOLD + ANSI_CYAN_BACKGROUND + ANSI_WHITE + "     TURN: " + chessMatch.getTurn() + "       " + ANSI_RESET);
 
-        // testar se não há cheque-mate para seguir com a próxima jogada:
-        if (!chessMatch.getCheckMate()) {
+        // testar se não há cheque-mate, afogamento nem empate para seguir com
+        // a próxima jogada:
+        if (!chessMatch.getCheckMate() && !chessMatch.getStaleMate() && !chessMatch.getDraw()) {
 
             // jogador corrente:
             System.out.print("Player: ");
@@ -87,6 +106,32 @@ public class UI {
             }
 
         }
+        // fim de jogo por afogamento, empatado:
+        else if (chessMatch.getStaleMate()) {
+            System.out.println();
+            System.out.println(ANSI_BOLD + ANSI_YELLOW_BACKGROUND + ANSI_WHITE + "·                 ·" + ANSI_RESET);
+            System.out.println(ANSI_BOLD + ANSI_YELLOW_BACKGROUND + ANSI_WHITE + "    STALEMATE!     " + ANSI_RESET);
+            System.out.println(ANSI_BOLD + ANSI_YELLOW_BACKGROUND + ANSI_WHITE + "·                 ·" + ANSI_RESET);
+            System.out.println();
+            System.out.println(ANSI_BOLD + ANSI_BLINK + ANSI_YELLOW + "    DRAW!" + ANSI_RESET);
+            System.out.println();
+        }
+        // fim de jogo por repetição, lances sem captura nem movimento de peão
+        // ou material insuficiente, empatado (os dois primeiros, quando
+        // reclamados):
+        else if (chessMatch.getDraw()) {
+            String reason = chessMatch.isInsufficientMaterial() ? " NO MATING MATERIAL"
+                : chessMatch.isSeventyFiveMoveRule() ? "   75-MOVE RULE    "
+                : (chessMatch.getRepetitionCount() >= 4) ? "FIVEFOLD REPETITION"
+                : chessMatch.isFiftyMoveRule() ? "  FIFTY-MOVE RULE  " : "    REPETITION!    ";
+            System.out.println();
+            System.out.println(ANSI_BOLD + ANSI_YELLOW_BACKGROUND + ANSI_WHITE + "·                 ·" + ANSI_RESET);
+            System.out.println(ANSI_BOLD + ANSI_YELLOW_BACKGROUND + ANSI_WHITE + reason + ANSI_RESET);
+            System.out.println(ANSI_BOLD + ANSI_YELLOW_BACKGROUND + ANSI_WHITE + "·                 ·" + ANSI_RESET);
+            System.out.println();
+            System.out.println(ANSI_BOLD + ANSI_BLINK + ANSI_YELLOW + "    DRAW!" + ANSI_RESET);
+            System.out.println();
+        }
         // fim de jogo e cheque-mate:
         else {
             System.out.println();
@@ -0,0 +1,24 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import chess.uci.UciEngine;
+
+// motor no protocolo UCI pela entrada e saída padrão, para interfaces
+// gráficas e gerenciadores de torneios:
+public class UciProgram {
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        UciEngine engine = new UciEngine(System.out);
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!line.isBlank() && !engine.handle(line)) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package chess;
+
+// tabelas e operações de bitboards: cada casa do tabuleiro corresponde a um
+// bit de um long, com índice 'linha * 8 + coluna' nas coordenadas da matriz
+// (a8 = 0, h8 = 7, a1 = 56, h1 = 63):
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_8 = 0xFFL;
+    public static final long RANK_1 = RANK_8 << 56;
+    // casas claras (a8 é clara):
+    public static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    // ataques de peão indexados por [Color.ordinal()][casa]:
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // casas estritamente entre duas casas alinhadas (mesma linha, coluna ou
+    // diagonal), ou 0 se não alinhadas:
+    private static final long[][] BETWEEN = new long[64][64];
+
+    private static final int[][] KNIGHT_DELTAS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+    private static final int[][] KING_DELTAS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+    private static final int[][] ROOK_DELTAS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DELTAS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    // magic bitboards das peças deslizantes: as casas relevantes da
+    // ocupação (os raios sem a casa da borda, que não muda o ataque) são
+    // multiplicadas pelo número mágico da casa, e os bits altos do produto
+    // formam o índice do ataque já calculado, numa única tabela plana com a
+    // parte de cada casa a partir do seu deslocamento. Números mágicos
+    // encontrados por busca aleatória (candidatos esparsos, E de três
+    // números do SplitMix64) com a quantidade mínima de bits do índice,
+    // indexados pela casa (a8 = 0):
+    private static final long[] ROOK_MAGICS = {
+        0x9A80011020400081L, 0x8840004010002000L, 0x8100082004104100L, 0x0880041000080180L,
+        0x0600082200300421L, 0x0200212450020008L, 0x0400010844008210L, 0x0200003400705A01L,
+        0x0000802040008009L, 0x4181806000400080L, 0x1002801000802000L, 0x120100210010000CL,
+        0x01A4800800040080L, 0x0000808004000200L, 0x4411000200144100L, 0x004A000082006401L,
+        0xE090208000904000L, 0x4040012010002800L, 0x0001030020004010L, 0x06A8808008001001L,
+        0x028C808008000402L, 0x0001010008040002L, 0x402A2C0008010210L, 0x8A12020000810064L,
+        0x0140004080008020L, 0x20302000C0100940L, 0x0C01004100102000L, 0x0000082100100100L,
+        0x1004080080040080L, 0x0801000300080400L, 0x10B5000100040200L, 0x000500820004440DL,
+        0x4210400030800880L, 0x00C1804001802000L, 0x0020020010100400L, 0x8C000A0042001020L,
+        0x0004050011000800L, 0x0000040080800200L, 0x0022100104000208L, 0x0010050842000194L,
+        0x0000400080008020L, 0x0150004020004000L, 0x1020001000208080L, 0x6920080010008080L,
+        0x0041000800850010L, 0x114A010890220014L, 0x9600080190040002L, 0x000004510082002CL,
+        0x811102A444800100L, 0x0040100020004640L, 0x0020220411824200L, 0x20100028040040C0L,
+        0x8002002010040A00L, 0x082A020080040080L, 0x0002800100020080L, 0x5000040041008200L,
+        0x4204800041022039L, 0x0042812102001142L, 0x0540200009110241L, 0x002200200810C016L,
+        0x000200440850A002L, 0x2841000400080201L, 0xC040084090020104L, 0x0000110024108042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+        0x00C4100C03041390L, 0x0002025204010100L, 0x44A10800808C0900L, 0x80080601420C2401L,
+        0x1804104480001202L, 0x8001012010100400L, 0x000600B008080088L, 0x0000410801212000L,
+        0x4101122450041040L, 0x008010A202004600L, 0x0002104C10902000L, 0x1840282A00208000L,
+        0x0024141044C00008L, 0x200000900420C101L, 0x8000242202100401L, 0x80000020A4100801L,
+        0xC040004810216200L, 0x0004110810040840L, 0x0054010A48020140L, 0x0008200104010040L,
+        0x10040082101400A0L, 0x0401020201008200L, 0x10A0800064042008L, 0x010030220D010802L,
+        0x0088200040048109L, 0x080402002008812EL, 0x0200900018002920L, 0x0002040020110020L,
+        0x0000840208802000L, 0x0010020A01008200L, 0x8018088004420880L, 0x4004820090260244L,
+        0x6102200402111000L, 0x0041182004620410L, 0x000404C806840320L, 0x0021400820020200L,
+        0x2040208020020020L, 0x0204008601088810L, 0x24080A0280004840L, 0x0204440040028440L,
+        0x010808484A020400L, 0x010C022150000480L, 0x9010201402109001L, 0x0002024010401201L,
+        0x0002440104020A10L, 0x4020042082000020L, 0x000228010400010CL, 0x20020C040A821024L,
+        0x0000411048204000L, 0x8240220110090184L, 0x0200421042084000L, 0x1000000084240808L,
+        0x814050041044000DL, 0x2200A00821284002L, 0x0A08020408020808L, 0x0320420091110004L,
+        0x5800804048044002L, 0x8000004100882030L, 0x818A090056080C00L, 0x20080C4050208800L,
+        0x1000020020204102L, 0x2000041020210110L, 0x00D0218801011C00L, 0x001002080D102601L
+    };
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    // 102400 entradas das Torres seguidas de 5248 dos Bispos:
+    private static final long[] SLIDER_ATTACKS = new long[102_400 + 5_248];
+
+    static {
+        for (int sq=0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = stepAttacks(sq, KNIGHT_DELTAS);
+            KING_ATTACKS[sq] = stepAttacks(sq, KING_DELTAS);
+            // o peão branco avança em direção à linha 0 da matriz e o preto
+            // em direção à linha 7:
+            PAWN_ATTACKS[Color.WHITE.ordinal()][sq] = stepAttacks(sq, new int[][] {{-1, -1}, {-1, 1}});
+            PAWN_ATTACKS[Color.BLACK.ordinal()][sq] = stepAttacks(sq, new int[][] {{1, -1}, {1, 1}});
+            for (int[] d : KING_DELTAS) {
+                long ray = 0L;
+                int r = row(sq) + d[0];
+                int c = column(sq) + d[1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    BETWEEN[sq][square(r, c)] = ray;
+                    ray |= bit(square(r, c));
+                    r += d[0];
+                    c += d[1];
+                }
+            }
+        }
+        int offset = 0;
+        for (int sq=0; sq < 64; sq++) {
+            offset = initMagic(sq, ROOK_DELTAS, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_OFFSETS, offset);
+        }
+        for (int sq=0; sq < 64; sq++) {
+            offset = initMagic(sq, BISHOP_DELTAS, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_OFFSETS, offset);
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int column) {
+        return row * 8 + column;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int column(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    public static long pawnAttacks(Color color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    // ataques deslizantes até a primeira casa ocupada de cada raio (incluída
+    // no resultado), por consulta às tabelas mágicas:
+    public static long rookAttacks(int square, long occupied) {
+        return SLIDER_ATTACKS[ROOK_OFFSETS[square] + (int)(((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return SLIDER_ATTACKS[BISHOP_OFFSETS[square] + (int)(((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    // casas atacadas por todos os peões de um bitboard, com deslocamentos
+    // que descartam o transbordo entre as colunas 'a' e 'h':
+    public static long pawnAttacksAll(Color color, long pawns) {
+        if (color == Color.WHITE) {
+            return ((pawns & ~FILE_A) >>> 9) | ((pawns & ~FILE_H) >>> 7);
+        }
+        return ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+    }
+
+    private static long stepAttacks(int square, int[][] deltas) {
+        long attacks = 0L;
+        for (int[] d : deltas) {
+            int r = row(square) + d[0];
+            int c = column(square) + d[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                attacks |= bit(square(r, c));
+            }
+        }
+        return attacks;
+    }
+
+    // máscara e parte da tabela da casa, a partir de 'offset', preenchida
+    // com os ataques de todas as ocupações relevantes; retorna o
+    // deslocamento da próxima casa:
+    private static int initMagic(int square, int[][] deltas, long[] magics, long[] masks, int[] shifts, int[] offsets, int offset) {
+        long mask = 0L;
+        for (int[] d : deltas) {
+            int r = row(square) + d[0];
+            int c = column(square) + d[1];
+            // a última casa do raio (na borda) não entra na máscara:
+            while (r + d[0] >= 0 && r + d[0] < 8 && c + d[1] >= 0 && c + d[1] < 8) {
+                mask |= bit(square(r, c));
+                r += d[0];
+                c += d[1];
+            }
+        }
+        int bits = Long.bitCount(mask);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        offsets[square] = offset;
+
+        // subconjuntos da máscara, um a um (carry-rippler); cada índice deve
+        // receber um único ataque:
+        long subset = 0L;
+        do {
+            long attacks = slidingAttacks(square, subset, deltas);
+            int index = offset + (int)((subset * magics[square]) >>> (64 - bits));
+            if (SLIDER_ATTACKS[index] != 0 && SLIDER_ATTACKS[index] != attacks) {
+                throw new IllegalStateException("Magic collision on square " + square + ".");
+            }
+            SLIDER_ATTACKS[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+        return offset + (1 << bits);
+    }
+
+    // ataques percorrendo cada raio até a primeira casa ocupada, usados para
+    // preencher as tabelas mágicas:
+    private static long slidingAttacks(int square, long occupied, int[][] deltas) {
+        long attacks = 0L;
+        for (int[] d : deltas) {
+            int r = row(square) + d[0];
+            int c = column(square) + d[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long b = bit(square(r, c));
+                attacks |= b;
+                if ((occupied & b) != 0) {
+                    break;
+                }
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,184 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.Piece;
+import boardgame.Position;
+
+// tabuleiro de xadrez que, além da matriz de peças de Board, mantém doze
+// bitboards (um por cor e tipo de peça) e a ocupação agregada, sincronizados
+// em placePiece e removePiece:
+public class ChessBoard extends Board {
+
+    // bitboards indexados por [Color.ordinal() * 6 + PieceType.ordinal()]:
+    private long[] bitboards = new long[12];
+    // ocupação por cor, indexada por Color.ordinal():
+    private long[] colors = new long[2];
+    private long occupied;
+    // casa de cada Rei, indexada por Color.ordinal() (-1 se ausente):
+    private int[] kingSquares = {-1, -1};
+    // parte do hash Zobrist relativa às peças, atualizada junto com os bitboards:
+    private long key;
+    // somas de PieceSquare (saldo das brancas) e fase do jogo, também
+    // atualizadas a cada peça colocada ou removida:
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+
+    // posições compartilhadas de cada casa, usadas pelas operações por
+    // índice de casa para não alocar Position; não devem ser alteradas:
+    private static final Position[] POSITIONS = new Position[64];
+
+    static {
+        for (int sq=0; sq < 64; sq++) {
+            POSITIONS[sq] = new Position(Bitboards.row(sq), Bitboards.column(sq));
+        }
+    }
+
+    public ChessBoard() {
+        super(8, 8);
+    }
+
+    public void placePiece(Piece piece, int square) {
+        placePiece(piece, POSITIONS[square]);
+    }
+
+    public ChessPiece removePiece(int square) {
+        return (ChessPiece)removePiece(POSITIONS[square]);
+    }
+
+    @Override
+    public void placePiece(Piece piece, Position position) {
+        super.placePiece(piece, position);
+        ChessPiece p = (ChessPiece)piece;
+        int square = Bitboards.square(position.getRow(), position.getColumn());
+        toggle(p, square);
+        middlegameScore += PieceSquare.middlegame(p.getColor(), p.getType(), square);
+        endgameScore += PieceSquare.endgame(p.getColor(), p.getType(), square);
+        phase += PieceSquare.PHASE[p.getType().ordinal()];
+        if (p.getType() == PieceType.KING) {
+            kingSquares[p.getColor().ordinal()] = square;
+        }
+    }
+
+    @Override
+    public Piece removePiece(Position position) {
+        Piece aux = super.removePiece(position);
+        if (aux != null) {
+            ChessPiece p = (ChessPiece)aux;
+            int square = Bitboards.square(position.getRow(), position.getColumn());
+            toggle(p, square);
+            middlegameScore -= PieceSquare.middlegame(p.getColor(), p.getType(), square);
+            endgameScore -= PieceSquare.endgame(p.getColor(), p.getType(), square);
+            phase -= PieceSquare.PHASE[p.getType().ordinal()];
+            if (p.getType() == PieceType.KING) {
+                kingSquares[p.getColor().ordinal()] = -1;
+            }
+        }
+        return aux;
+    }
+
+    // liga ou desliga o bit da casa nos bitboards da peça:
+    private void toggle(ChessPiece piece, int square) {
+        long b = Bitboards.bit(square);
+        bitboards[index(piece.getColor(), piece.getType())] ^= b;
+        colors[piece.getColor().ordinal()] ^= b;
+        occupied ^= b;
+        key ^= Zobrist.piece(piece.getColor(), piece.getType(), square);
+    }
+
+    private static int index(Color color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    public ChessPiece piece(int square) {
+        return (ChessPiece)piece(Bitboards.row(square), Bitboards.column(square));
+    }
+
+    public long pieces(Color color, PieceType type) {
+        return bitboards[index(color, type)];
+    }
+
+    public int kingSquare(Color color) {
+        return kingSquares[color.ordinal()];
+    }
+
+    public long occupancy(Color color) {
+        return colors[color.ordinal()];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    // fase do jogo pelas peças em jogo, de 0 a PieceSquare.TOTAL_PHASE (pode
+    // passar do total com promoções):
+    public int getPhase() {
+        return phase;
+    }
+
+    // a casa é atacada por alguma peça da cor? Parte da própria casa: raios
+    // de Torre e Bispo até a primeira peça, saltos de Cavalo e Rei e as
+    // diagonais de onde um peão da cor atacaria (os ataques de um peão da cor
+    // oposta a partir da casa):
+    public boolean isSquareAttacked(int square, Color by) {
+        Color other = (by == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        if ((Bitboards.pawnAttacks(other, square) & pieces(by, PieceType.PAWN)) != 0) {
+            return true;
+        }
+        if ((Bitboards.knightAttacks(square) & pieces(by, PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((Bitboards.kingAttacks(square) & pieces(by, PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = pieces(by, PieceType.QUEEN);
+        long diagonal = pieces(by, PieceType.BISHOP) | queens;
+        if (diagonal != 0 && (Bitboards.bishopAttacks(square, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = pieces(by, PieceType.ROOK) | queens;
+        return straight != 0 && (Bitboards.rookAttacks(square, occupied) & straight) != 0;
+    }
+
+    // bitboard das peças da cor que atacam a casa, com uma ocupação
+    // informada (para testar posições hipotéticas sem mover peças):
+    public long attackersTo(int square, Color by, long occupied) {
+        Color other = (by == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long queens = pieces(by, PieceType.QUEEN);
+        return (Bitboards.pawnAttacks(other, square) & pieces(by, PieceType.PAWN))
+            | (Bitboards.knightAttacks(square) & pieces(by, PieceType.KNIGHT))
+            | (Bitboards.kingAttacks(square) & pieces(by, PieceType.KING))
+            | (Bitboards.bishopAttacks(square, occupied) & (pieces(by, PieceType.BISHOP) | queens))
+            | (Bitboards.rookAttacks(square, occupied) & (pieces(by, PieceType.ROOK) | queens));
+    }
+
+    // todas as casas atacadas pelas peças de uma cor:
+    public long attacksBy(Color color) {
+        long attacks = Bitboards.pawnAttacksAll(color, pieces(color, PieceType.PAWN));
+        for (long b = pieces(color, PieceType.KNIGHT); b != 0; b &= b - 1) {
+            attacks |= Bitboards.knightAttacks(Long.numberOfTrailingZeros(b));
+        }
+        for (long b = pieces(color, PieceType.BISHOP) | pieces(color, PieceType.QUEEN); b != 0; b &= b - 1) {
+            attacks |= Bitboards.bishopAttacks(Long.numberOfTrailingZeros(b), occupied);
+        }
+        for (long b = pieces(color, PieceType.ROOK) | pieces(color, PieceType.QUEEN); b != 0; b &= b - 1) {
+            attacks |= Bitboards.rookAttacks(Long.numberOfTrailingZeros(b), occupied);
+        }
+        for (long b = pieces(color, PieceType.KING); b != 0; b &= b - 1) {
+            attacks |= Bitboards.kingAttacks(Long.numberOfTrailingZeros(b));
+        }
+        return attacks;
+    }
+}
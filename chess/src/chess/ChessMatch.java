@@ -1,10 +1,9 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.Bishop;
@@ -16,22 +15,130 @@ import chess.pieces.Rook;
 
 public class ChessMatch {
 
+    // bits dos direitos de roque, derivados das contagens de movimentos do
+    // Rei e das Torres nas casas iniciais:
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    // casas iniciais de Reis e Torres (e1, h1, a1, e8, h8, a8); só movimentos
+    // que as tocam podem alterar os direitos de roque:
+    private static final long CASTLING_SQUARES = Bitboards.bit(60) | Bitboards.bit(63) | Bitboards.bit(56) | Bitboards.bit(4) | Bitboards.bit(7) | Bitboards.bit(0);
+
     private int turn;
     private Color currentPlayer;
-    private Board board;
+    private ChessBoard board;
+    private LegalMoveGenerator legalMoveGenerator;
     private boolean check;
     private boolean checkMate;
+    private boolean staleMate;
+    // empate automático (repetição quíntupla, regra dos 75 lances ou material
+    // insuficiente) ou reclamado com claimDraw(); o afogamento fica em
+    // 'staleMate':
+    private boolean draw;
     private ChessPiece enPassantVulnerable;
     private ChessPiece promoted;
-
-    private List<Piece> piecesOnTheBoard = new ArrayList<>();
+    // meios-lances desde a última captura ou movimento de peão:
+    private int halfMoveClock;
+
+    // hash Zobrist: as peças ficam na chave do tabuleiro e 'stateKey' guarda
+    // lado a jogar, direitos de roque e coluna do En-Passant:
+    private long stateKey;
+    private int castlingRights;
+    private int enPassantFile = -1;
+
+    // as peças no tabuleiro ficam indexadas por cor e tipo nos bitboards de
+    // ChessBoard, que também guarda a casa de cada Rei; as capturadas formam
+    // uma pilha, desfeita sempre a partir do topo:
     private List<Piece> capturedPieces = new ArrayList<>();
 
+    // buffer reutilizado na localização de movimentos e no teste de
+    // cheque-mate:
+    private int[] moveBuffer = new int[Move.MAX_MOVES];
+
+    // histórico dos movimentos, em vetores paralelos indexados pelo
+    // meio-lance: movimento, peça capturada, peça movida e o estado anterior
+    // (En-Passant, cheque, contador de lances e chave Zobrist), o suficiente
+    // para desfazer e refazer cada lance sem recalcular a partida e para
+    // detectar repetições. 'historySize' é o
+    // meio-lance atual e 'historyEnd' o fim dos lances que podem ser
+    // refeitos. Alocados só no primeiro movimento, já que partidas paradas
+    // (como as de um servidor com muitas partidas) não os usam:
+    private int[] historyMoves = new int[0];
+    private Piece[] historyCaptured = new Piece[0];
+    private ChessPiece[] historyMoved = new ChessPiece[0];
+    private ChessPiece[] historyEnPassant = new ChessPiece[0];
+    private boolean[] historyCheck = new boolean[0];
+    private int[] historyHalfMoveClock = new int[0];
+    private long[] historyKeys = new long[0];
+    private int historySize;
+    private int historyEnd;
+    // chaves das posições anteriores à partida copiada (a mais recente por
+    // último), desde o último lance irreversível, para que as repetições
+    // sejam vistas através da raiz de uma busca:
+    private long[] priorKeys = new long[0];
+
+    // retrato imutável da partida, publicado a cada performChessMove para
+    // leitores em outras threads:
+    private volatile Snapshot snapshot;
+    private long snapshotVersion;
+
     public ChessMatch() {
-        board = new Board(8, 8);
+        board = new ChessBoard();
+        legalMoveGenerator = new LegalMoveGenerator(this, board);
         turn = 1;
         currentPlayer = Color.WHITE;
         initialSetup();
+        castlingRights = computeCastlingRights();
+        stateKey = Zobrist.whiteToMove() ^ Zobrist.castling(castlingRights);
+        publish();
+    }
+
+    // partida a partir de uma posição em FEN, com peças, lado a jogar,
+    // direitos de roque, En-Passant e contadores de lances:
+    public ChessMatch(CharSequence fen) {
+        board = new ChessBoard();
+        legalMoveGenerator = new LegalMoveGenerator(this, board);
+        Fen.load(this, fen);
+    }
+
+    // cópia independente da partida (tabuleiro, peças, contagens de
+    // movimentos, jogador da vez, En-Passant e hash), para uso em outra
+    // thread; a pilha de doMove não é copiada, só as chaves das posições que
+    // ainda podem se repetir:
+    public ChessMatch(ChessMatch other) {
+        board = new ChessBoard();
+        legalMoveGenerator = new LegalMoveGenerator(this, board);
+        turn = other.turn;
+        currentPlayer = other.currentPlayer;
+        check = other.check;
+        checkMate = other.checkMate;
+        staleMate = other.staleMate;
+        draw = other.draw;
+        halfMoveClock = other.halfMoveClock;
+        for (long b = other.board.getOccupied(); b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            ChessPiece p = other.board.piece(sq);
+            ChessPiece copy = newPiece(p.getType(), p.getColor());
+            copy.setMoveCount(p.getMoveCount());
+            board.placePiece(copy, sq);
+            if (p == other.enPassantVulnerable) {
+                enPassantVulnerable = copy;
+            }
+        }
+        for (Piece p : other.capturedPieces) {
+            capturedPieces.add(newPiece(((ChessPiece)p).getType(), ((ChessPiece)p).getColor()));
+        }
+        stateKey = other.stateKey;
+        castlingRights = other.castlingRights;
+        enPassantFile = other.enPassantFile;
+        int keys = Math.min(other.halfMoveClock, other.historySize + other.priorKeys.length);
+        priorKeys = new long[keys];
+        for (int i=1; i <= keys; i++) {
+            priorKeys[keys - i] = other.keyBefore(i);
+        }
+        publish();
     }
 
     public int getTurn() {
@@ -50,6 +157,14 @@ public class ChessMatch {
         return checkMate;
     }
 
+    public boolean getStaleMate() {
+        return staleMate;
+    }
+
+    public boolean getDraw() {
+        return draw;
+    }
+
     public ChessPiece getEnPassantVulnerable() {
         return enPassantVulnerable;
     }
@@ -58,6 +173,80 @@ public class ChessMatch {
         return promoted;
     }
 
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    // número do lance na notação FEN: começa em 1 e avança após as pretas:
+    public int getFullMoveNumber() {
+        return (turn + 1) / 2;
+    }
+
+    // recarregar a partida a partir de outra FEN, reaproveitando o tabuleiro
+    // e os buffers, para a leitura em lote de arquivos de posições; se a FEN
+    // for inválida, a partida fica num estado indefinido até a próxima carga:
+    public void loadFen(CharSequence fen) {
+        for (long b = board.getOccupied(); b != 0; b &= b - 1) {
+            board.removePiece(Long.numberOfTrailingZeros(b));
+        }
+        capturedPieces.clear();
+        Arrays.fill(historyCaptured, 0, historyEnd, null);
+        Arrays.fill(historyMoved, 0, historyEnd, null);
+        Arrays.fill(historyEnPassant, 0, historyEnd, null);
+        historySize = 0;
+        historyEnd = 0;
+        priorKeys = new long[0];
+        Fen.load(this, fen);
+    }
+
+    // último retrato publicado; movimentos de doMove (busca, perft) não o
+    // alteram:
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(this, ++snapshotVersion);
+    }
+
+    // posição atual em FEN:
+    public String toFen() {
+        return Fen.append(this, new StringBuilder(96)).toString();
+    }
+
+    // tabuleiro com os bitboards, para consultas do motor de busca:
+    public ChessBoard getBoard() {
+        return board;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    // hash Zobrist da posição, mantido incrementalmente a cada movimento:
+    public long getZobristKey() {
+        return board.getKey() ^ stateKey;
+    }
+
+    // hash Zobrist recalculado do zero, percorrendo o tabuleiro, para
+    // conferência da chave incremental:
+    public long computeZobristKey() {
+        long key = 0L;
+        for (long b = board.getOccupied(); b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            ChessPiece p = board.piece(sq);
+            key ^= Zobrist.piece(p.getColor(), p.getType(), sq);
+        }
+        key ^= Zobrist.castling(computeCastlingRights());
+        if (enPassantVulnerable != null) {
+            key ^= Zobrist.enPassant(Bitboards.column(enPassantVulnerable.getSquare()));
+        }
+        if (currentPlayer == Color.WHITE) {
+            key ^= Zobrist.whiteToMove();
+        }
+        return key;
+    }
+
     public ChessPiece[][] getPieces() {
         ChessPiece[][] mat = new ChessPiece[board.getRows()][board.getColumns()];
         for (int i=0; i < board.getRows(); i++) {
@@ -76,58 +265,337 @@ public class ChessMatch {
         return board.piece(position).possibleMoves();
     }
 
+    // geração dos movimentos pseudo-legais do jogador da vez, codificados por
+    // Move, no buffer recebido (dimensionado com Move.MAX_MOVES), retornando a
+    // quantidade de movimentos escritos:
+    public int generateMoves(int[] moves) {
+        return generateMoves(currentPlayer, moves);
+    }
+
+    private int generateMoves(Color color, int[] moves) {
+        int count = 0;
+        for (long b = board.occupancy(color); b != 0; b &= b - 1) {
+            count = board.piece(Long.numberOfTrailingZeros(b)).generateMoves(moves, count);
+        }
+        return count;
+    }
+
+    // geração apenas dos movimentos legais do jogador da vez, com cravadas e
+    // cheques calculados antes, sem fazer e desfazer movimentos:
+    public int generateLegalMoves(int[] moves) {
+        return legalMoveGenerator.generate(currentPlayer, moves);
+    }
+
+    // apenas capturas (incluindo En-Passant) e promoções legais, para a
+    // busca de quiescência; podem vir também movimentos silenciosos de
+    // outras peças para a última fileira, que o chamador descarta:
+    public int generateLegalCaptures(int[] moves) {
+        long targets = board.occupancy(opponent(currentPlayer)) | Bitboards.RANK_8 | Bitboards.RANK_1;
+        return legalMoveGenerator.generate(currentPlayer, moves, targets);
+    }
+
+    // movimento codificado sem as validações de performChessMove, para busca e
+    // contagem de nós; deve ser desfeito com undoMove() em ordem inversa, e
+    // descarta os lances que poderiam ser refeitos com redo():
+    public void doMove(int move) {
+        ChessPiece movedPiece = board.piece(Move.from(move));
+        long key = getZobristKey();
+        Piece capturedPiece = makeMove(move);
+        pushHistory(move, movedPiece, capturedPiece, key);
+        historyEnd = historySize;
+
+        halfMoveClock = (movedPiece.getType() == PieceType.PAWN || capturedPiece != null) ? 0 : halfMoveClock + 1;
+
+        setEnPassantVulnerable(Move.isDoublePush(move) ? movedPiece : null);
+        nextTurn();
+        check = testCheck(currentPlayer);
+    }
+
+    // desfazer o último movimento feito com doMove:
+    public void undoMove() {
+        if (historySize == 0) {
+            throw new IllegalStateException("There is no move to be undone.");
+        }
+        historySize--;
+        previousTurn();
+        undoMove(historyMoves[historySize], historyCaptured[historySize], historyMoved[historySize]);
+        setEnPassantVulnerable(historyEnPassant[historySize]);
+        check = historyCheck[historySize];
+        halfMoveClock = historyHalfMoveClock[historySize];
+        historyCaptured[historySize] = null;
+        historyMoved[historySize] = null;
+        historyEnPassant[historySize] = null;
+        historyEnd = historySize;
+    }
+
+    // registro do movimento já feito no tabuleiro, com o estado anterior e a
+    // chave da posição antes dele:
+    private void pushHistory(int move, ChessPiece movedPiece, Piece capturedPiece, long key) {
+        if (historySize == historyMoves.length) {
+            growHistory();
+        }
+        historyMoves[historySize] = move;
+        historyMoved[historySize] = movedPiece;
+        historyCaptured[historySize] = capturedPiece;
+        historyEnPassant[historySize] = enPassantVulnerable;
+        historyCheck[historySize] = check;
+        historyHalfMoveClock[historySize] = halfMoveClock;
+        historyKeys[historySize] = key;
+        historySize++;
+    }
+
+/*===========================================================================*/
+// HISTORY
+
+    // meios-lances jogados desde a posição carregada:
+    public int getPly() {
+        return historySize;
+    }
+
+    // meios-lances do histórico, incluindo os desfeitos que podem ser
+    // refeitos:
+    public int getHistoryLength() {
+        return historyEnd;
+    }
+
+    // movimento do meio-lance (de 0 a getHistoryLength() - 1), codificado por
+    // Move com a promoção escolhida:
+    public int getHistoryMove(int ply) {
+        if (ply < 0 || ply >= historyEnd) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " out of " + historyEnd + ".");
+        }
+        return historyMoves[ply];
+    }
+
+    // volta um lance jogado com performChessMove, mantendo-o para redo():
+    public void undo() {
+        if (historySize == 0) {
+            throw new IllegalStateException("There is no move to be undone.");
+        }
+        takeBack();
+        publish();
+    }
+
+    // refaz o próximo lance desfeito com undo():
+    public void redo() {
+        if (historySize == historyEnd) {
+            throw new IllegalStateException("There is no move to be redone.");
+        }
+        replayNext();
+        publish();
+    }
+
+    // posição após o meio-lance indicado (0 para a posição carregada), com
+    // undo/redo passo a passo:
+    public void jumpToPly(int ply) {
+        if (ply < 0 || ply > historyEnd) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " out of " + historyEnd + ".");
+        }
+        while (historySize > ply) {
+            takeBack();
+        }
+        while (historySize < ply) {
+            replayNext();
+        }
+        publish();
+    }
+
+    // o registro fica no histórico para ser refeito; sem cheque-mate, a vez
+    // tinha passado ao oponente:
+    private void takeBack() {
+        historySize--;
+        ChessPiece movedPiece = historyMoved[historySize];
+        if (currentPlayer != movedPiece.getColor()) {
+            previousTurn();
+        }
+        undoMove(historyMoves[historySize], historyCaptured[historySize], movedPiece);
+        setEnPassantVulnerable(historyEnPassant[historySize]);
+        check = historyCheck[historySize];
+        halfMoveClock = historyHalfMoveClock[historySize];
+        checkMate = false;
+        staleMate = false;
+        draw = false;
+        promoted = null;
+    }
+
+    // lance já validado do histórico, com a promoção escolhida; cheque-mate e
+    // afogamento só podem ocorrer no último:
+    private void replayNext() {
+        int move = historyMoves[historySize];
+        ChessPiece sourcePiece = board.piece(Move.from(move));
+        long key = getZobristKey();
+        Piece capturedPiece = makeMove(move);
+        finishMove(move, sourcePiece, capturedPiece, key, historySize + 1 == historyEnd);
+    }
+
+    private void growHistory() {
+        int length = Math.max(64, historyMoves.length * 2);
+        historyMoves = Arrays.copyOf(historyMoves, length);
+        historyCaptured = Arrays.copyOf(historyCaptured, length);
+        historyMoved = Arrays.copyOf(historyMoved, length);
+        historyEnPassant = Arrays.copyOf(historyEnPassant, length);
+        historyCheck = Arrays.copyOf(historyCheck, length);
+        historyHalfMoveClock = Arrays.copyOf(historyHalfMoveClock, length);
+        historyKeys = Arrays.copyOf(historyKeys, length);
+    }
+
+/*===========================================================================*/
+// DRAWS
+
+    // ocorrências anteriores da posição atual (mesma chave Zobrist: peças,
+    // lado a jogar, roque e En-Passant). Só são percorridas as posições
+    // desde o último lance irreversível (captura ou movimento de peão, que
+    // zeram o contador de lances), e apenas as com o mesmo lado a jogar:
+    public int getRepetitionCount() {
+        long key = getZobristKey();
+        int limit = Math.min(halfMoveClock, historySize + priorKeys.length);
+        int count = 0;
+        // a posição mais próxima que pode se repetir está quatro
+        // meios-lances atrás:
+        for (int i=4; i <= limit; i += 2) {
+            if (keyBefore(i) == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // a posição atual já ocorreu antes? Usado pela busca, que trata a
+    // primeira repetição como empate:
+    public boolean isRepetition() {
+        long key = getZobristKey();
+        int limit = Math.min(halfMoveClock, historySize + priorKeys.length);
+        for (int i=4; i <= limit; i += 2) {
+            if (keyBefore(i) == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // chave da posição 'plies' meios-lances antes da atual, do histórico ou,
+    // antes dele, das posições anteriores à cópia:
+    private long keyBefore(int plies) {
+        return (plies <= historySize) ? historyKeys[historySize - plies] : priorKeys[priorKeys.length - (plies - historySize)];
+    }
+
+    // regra dos cinquenta lances: cem meios-lances sem captura nem
+    // movimento de peão; o empate pode ser reclamado:
+    public boolean isFiftyMoveRule() {
+        return halfMoveClock >= 100;
+    }
+
+    // regra dos 75 lances: cento e cinquenta meios-lances sem captura nem
+    // movimento de peão encerram a partida:
+    public boolean isSeventyFiveMoveRule() {
+        return halfMoveClock >= 150;
+    }
+
+    // nenhum dos lados pode dar mate: apenas Reis, um único Cavalo ou Bispo,
+    // ou apenas Bispos, todos em casas da mesma cor:
+    public boolean isInsufficientMaterial() {
+        long heavy = 0L;
+        for (Color color : Color.values()) {
+            heavy |= board.pieces(color, PieceType.PAWN) | board.pieces(color, PieceType.ROOK) | board.pieces(color, PieceType.QUEEN);
+        }
+        if (heavy != 0) {
+            return false;
+        }
+        long knights = board.pieces(Color.WHITE, PieceType.KNIGHT) | board.pieces(Color.BLACK, PieceType.KNIGHT);
+        long bishops = board.pieces(Color.WHITE, PieceType.BISHOP) | board.pieces(Color.BLACK, PieceType.BISHOP);
+        if (Long.bitCount(knights | bishops) <= 1) {
+            return true;
+        }
+        return knights == 0 && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
+    }
+
+    // como nas regras da FIDE, a repetição tripla e os cinquenta lances só
+    // dão ao jogador o direito de reclamar o empate; com a partida em
+    // andamento:
+    public boolean canClaimDraw() {
+        return !checkMate && !staleMate && !draw && (getRepetitionCount() >= 2 || isFiftyMoveRule());
+    }
+
+    // empate reclamado pelo jogador da vez:
+    public void claimDraw() {
+        if (!canClaimDraw()) {
+            throw new ChessException("There is no draw to be claimed.");
+        }
+        draw = true;
+        publish();
+    }
+
+    // empates que encerram a partida sem reclamação: repetição quíntupla,
+    // regra dos 75 lances e material insuficiente:
+    private boolean testDraw() {
+        return isSeventyFiveMoveRule() || isInsufficientMaterial() || getRepetitionCount() >= 4;
+    }
+
     // implementação de movimento:
     public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
         Position source = sourcePosition.toPosition();
         Position target = targetPosition.toPosition();
         validateSourcePosition(source);
         validateTargetPosition(source, target);
-        Piece capturedPiece = makeMove(source, target);
+        int move = toMove(source, target);
+        ChessPiece sourcePiece = (ChessPiece)board.piece(source);
+        long key = getZobristKey();
+        Piece capturedPiece = makeMove(move);
 
         // impedir movimento caso o jogador coloque seu rei em cheque,
         // testando em testCheck:
         if (testCheck(currentPlayer)) {
             // se true, desfazer o movimento:
-            undoMove(source, target, capturedPiece);
+            undoMove(move, capturedPiece, sourcePiece);
             throw new ChessException("You can not put yourself in check.");
         }
 
+        // o lance jogado descarta os que poderiam ser refeitos:
+        finishMove(move, sourcePiece, capturedPiece, key, true);
+        historyEnd = historySize;
+        publish();
+
+        return (ChessPiece)capturedPiece;
+    }
+
+    // conclusão de um lance legal já feito no tabuleiro, comum a
+    // performChessMove e redo(): histórico, promoção, contador de lances,
+    // En-Passant, cheque e, com 'testEnd', cheque-mate, afogamento e os
+    // demais empates; 'key' é a chave da posição antes do lance:
+    private void finishMove(int move, ChessPiece sourcePiece, Piece capturedPiece, long key, boolean testEnd) {
+        pushHistory(move, sourcePiece, capturedPiece, key);
+
         // instância de peça movida para teste En-Passant abaixo:
-        ChessPiece movedPiece = (ChessPiece)board.piece(target);
+        ChessPiece movedPiece = board.piece(Move.to(move));
 
-        // PROMOTION
-        promoted = null;
-        if (movedPiece instanceof Pawn) {
-            // validar equipe do peão e se ele chegou no limite oposto do
-            // tabuleiro:
-            if ((movedPiece.getColor() == Color.WHITE && target.getRow() == 0) || (movedPiece.getColor() == Color.BLACK && target.getRow() == 7)) {
-                promoted = (ChessPiece)board.piece(target);
-                promoted = replacePromotedPiece("Q");
-            }
-        }
+        // PROMOTION: o peão já foi trocado pela peça do movimento (a Rainha,
+        // em performChessMove) em makeMove, podendo ser substituída depois
+        // com replacePromotedPiece:
+        promoted = Move.isPromotion(move) ? movedPiece : null;
+
+        // regra dos cinquenta lances: zerar o contador em capturas e
+        // movimentos de peão:
+        halfMoveClock = (sourcePiece instanceof Pawn || capturedPiece != null) ? 0 : halfMoveClock + 1;
+
+        // En-Passant: o peão que avançou duas casas fica vulnerável; feito
+        // antes dos testes abaixo para que a captura En-Passant conte como
+        // resposta do oponente:
+        setEnPassantVulnerable(Move.isDoublePush(move) ? movedPiece : null);
 
         // ternário para verificar se o oponente foi colocado em cheque:
         check = (testCheck(opponent(currentPlayer))) ? true : false;
 
         // teste cheque-mate:
-        if (testCheckMate(opponent(currentPlayer))) {
+        if (testEnd && testCheckMate(opponent(currentPlayer))) {
             checkMate = true;
         }
         else {
+            // afogamento: oponente sem cheque e sem movimentos legais:
+            checkMate = false;
+            staleMate = testEnd && testStaleMate(opponent(currentPlayer));
             nextTurn();
         }
-
-        // En-Passant: teste de vulnerabilidade, validando se a peça em
-        // movimento é um Peão e se seu movimento é de duas casas em qualquer
-        // dos dois sentidos das equipes:
-        if (movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-            enPassantVulnerable = movedPiece;
-        }
-        else {
-            enPassantVulnerable = null;
-        }
-
-        return (ChessPiece)capturedPiece;
+        draw = testEnd && !checkMate && !staleMate && testDraw();
     }
 
     // PROMOTION método de escolha da peça e troca:
@@ -138,13 +606,37 @@ public class ChessMatch {
         if (!type.equals("B") && !type.equals("K") && !type.equals("Q") && !type.equals("R")) {
             return promoted;
         }
+        // as chaves Zobrist das peças trocadas são atualizadas pelo próprio
+        // tabuleiro em removePiece e placePiece:
         Position pos = promoted.getChessPosition().toPosition();
-        Piece p = board.removePiece(pos);
-        piecesOnTheBoard.remove(p);
+        board.removePiece(pos);
 
         ChessPiece newPiece = newPiece(type, promoted.getColor());
         board.placePiece(newPiece, pos);
-        piecesOnTheBoard.add(newPiece);
+
+        // o histórico guarda a peça escolhida, para que redo() a recoloque; a
+        // troca muda a partida, descartando os lances que seriam refeitos:
+        int last = historySize - 1;
+        historyMoves[last] = (historyMoves[last] & ~(7 << 16)) | (newPiece.getType().ordinal() << 16);
+        historyEnd = historySize;
+
+        // a peça escolhida pode mudar o cheque, o cheque-mate e o afogamento
+        // do oponente, avaliados antes com a Rainha; sem cheque-mate, a vez
+        // já passou ao oponente em performChessMove:
+        Color opponent = opponent(newPiece.getColor());
+        boolean wasCheckMate = checkMate;
+        check = testCheck(opponent);
+        checkMate = testCheckMate(opponent);
+        staleMate = !checkMate && testStaleMate(opponent);
+        // a peça escolhida pode tornar o material insuficiente:
+        draw = !checkMate && !staleMate && testDraw();
+        if (wasCheckMate && !checkMate) {
+            nextTurn();
+        }
+        else if (!wasCheckMate && checkMate) {
+            previousTurn();
+        }
+        publish();
 
         return newPiece;
     }
@@ -156,82 +648,91 @@ public class ChessMatch {
         return new Rook(board, color);
     }
 
+    private ChessPiece newPiece(PieceType type, Color color) {
+        switch (type) {
+            case PAWN: return new Pawn(board, color, this);
+            case KNIGHT: return new Knight(board, color);
+            case BISHOP: return new Bishop(board, color);
+            case QUEEN: return new Queen(board, color);
+            case KING: return new King(board, color);
+            default: return new Rook(board, color);
+        }
+    }
+
+    // localizar o movimento codificado entre a origem e o destino informados,
+    // entre os movimentos gerados pela peça; na promoção, o primeiro gerado é
+    // o da Rainha:
+    private int toMove(Position source, Position target) {
+        int to = Bitboards.square(target.getRow(), target.getColumn());
+        int count = ((ChessPiece)board.piece(source)).generateMoves(moveBuffer, 0);
+        for (int i=0; i < count; i++) {
+            if (Move.to(moveBuffer[i]) == to) {
+                return moveBuffer[i];
+            }
+        }
+        throw new ChessException("The chosen piece can not move to target position.");
+    }
+
 /*===========================================================================*/
 // MAKEMOVE
 
-    // movimento das peças de uma origem para um destino, incluindo substituição
-    // de peças capturadas nas casas:
-    private Piece makeMove(Position source, Position target) {
-        ChessPiece p = (ChessPiece)board.removePiece(source);
+    // movimento codificado das peças de uma origem para um destino,
+    // incluindo substituição de peças capturadas nas casas:
+    private Piece makeMove(int move) {
+        int source = Move.from(move);
+        int target = Move.to(move);
+        ChessPiece p = board.removePiece(source);
         p.increaseMoveCount();
 
-        // peça capturada:
-        Piece capturedPiece = board.removePiece(target);
+        // peça capturada; no En-Passant, o peão capturado está na linha de
+        // origem e na coluna de destino:
+        Piece capturedPiece = board.removePiece(Move.isEnPassant(move) ? enPassantSquare(move) : target);
 
-        // conclusão do movimento:
-        board.placePiece(p, target);
+        // conclusão do movimento, trocando o peão pela peça escolhida em caso
+        // de promoção:
+        if (Move.isPromotion(move)) {
+            board.placePiece(newPiece(Move.promotion(move), p.getColor()), target);
+        }
+        else {
+            board.placePiece(p, target);
+        }
 
-        // caso haja uma captura, atualizar lista de peças no tabuleiro
-        // e de peças capturadas:
+        // caso haja uma captura, empilhar nas peças capturadas:
         if (capturedPiece != null) {
-            piecesOnTheBoard.remove(capturedPiece);
             capturedPieces.add(capturedPiece);
         }
 
-        // Roque pequeno: validar se a peça em movimento é do tipo King e se
-        // o movimento foi excepcional de duas casas para a direita:
-        if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            // instância das posições de origem e destino da Torre:
-            Position sourceR = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetR = new Position(source.getRow(), source.getColumn() + 1);
-            // movendo a Torre:
-            ChessPiece rook = (ChessPiece)board.removePiece(sourceR);
+        // Roque pequeno (Rei duas casas para a direita) ou grande (duas casas
+        // para a esquerda): mover também a Torre:
+        if (Move.isCastling(move)) {
+            int sourceR = (target > source) ? source + 3 : source - 4;
+            int targetR = (target > source) ? source + 1 : source - 1;
+            ChessPiece rook = board.removePiece(sourceR);
             board.placePiece(rook, targetR);
             rook.increaseMoveCount();
         }
-        // Roque grande: validar se a peça em movimento é do tipo King e se
-        // o movimento foi excepcional de duas casas para a esquerda:
-        if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            // instância das posições de origem e destino da Torre:
-            Position sourceR = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetR = new Position(source.getRow(), source.getColumn() - 1);
-            // movendo a Torre:
-            ChessPiece rook = (ChessPiece)board.removePiece(sourceR);
-            board.placePiece(rook, targetR);
-            rook.increaseMoveCount();
-        }
-
-        // En-Passant:
-        if (p instanceof Pawn) {
-            // se o peão se moveu na diagonal (entre colunas) e a captura de
-            // peça não ocupou 'capturedPiece', então foi um En-Passant:
-            if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-                // verificar se foi um En-Passant à esquerda ou à direita
-                // de uma jogada de equipe branca ou da equipe preta, para
-                // identificar a posição real da peça a ser capturada:
-                Position pawnPosition;
-                if (p.getColor() == Color.WHITE) {
-                    pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-                }
-                else {
-                    pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-                }
-                // removendo Peão capturado do jogo:
-                capturedPiece = board.removePiece(pawnPosition);
-                capturedPieces.addLast(capturedPiece);
-                piecesOnTheBoard.remove(capturedPiece);
-            }
-        }
 
+        updateCastlingRights(move);
         return capturedPiece;
     }
 
+    // casa do peão capturado num En-Passant:
+    private static int enPassantSquare(int move) {
+        return Bitboards.square(Bitboards.row(Move.from(move)), Bitboards.column(Move.to(move)));
+    }
+
 /*===========================================================================*/
 // UNDO MOVE
 
-    // desfazer movimento, caso o movimento solicitado resulte em cheque:
-    private void undoMove(Position source, Position target, Piece capturedPiece) {
-        ChessPiece p = (ChessPiece)board.removePiece(target);
+    // desfazer movimento, caso o movimento solicitado resulte em cheque; a
+    // peça movida é informada para recolocar o peão em caso de promoção:
+    private void undoMove(int move, Piece capturedPiece, ChessPiece movedPiece) {
+        int source = Move.from(move);
+        int target = Move.to(move);
+        ChessPiece p = board.removePiece(target);
+        if (Move.isPromotion(move)) {
+            p = movedPiece;
+        }
         p.decreaseMoveCount();
 
         // conclusão:
@@ -239,42 +740,143 @@ public class ChessMatch {
 
         // testar se alguma peça foi capturada e reintegrá-la:
         if (capturedPiece != null) {
-            board.placePiece(capturedPiece, target);
-            capturedPieces.remove(capturedPiece);
-            piecesOnTheBoard.add(capturedPiece);
+            board.placePiece(capturedPiece, Move.isEnPassant(move) ? enPassantSquare(move) : target);
+            // a captura desfeita é sempre a última empilhada:
+            capturedPieces.remove(capturedPieces.size() - 1);
         }
 
-        // Roque pequeno:
-        if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position sourceR = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetR = new Position(source.getRow(), source.getColumn() + 1);
-            ChessPiece rook = (ChessPiece)board.removePiece(targetR);
+        // Roque: devolver a Torre:
+        if (Move.isCastling(move)) {
+            int sourceR = (target > source) ? source + 3 : source - 4;
+            int targetR = (target > source) ? source + 1 : source - 1;
+            ChessPiece rook = board.removePiece(targetR);
             board.placePiece(rook, sourceR);
             rook.decreaseMoveCount();
         }
-        // Roque grande:
-        if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position sourceR = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetR = new Position(source.getRow(), source.getColumn() - 1);
-            ChessPiece rook = (ChessPiece)board.removePiece(targetR);
-            board.placePiece(rook, sourceR);
-            rook.decreaseMoveCount();
+
+        updateCastlingRights(move);
+    }
+
+/*===========================================================================*/
+// ZOBRIST
+
+    // recálculo dos direitos de roque apenas quando o movimento toca uma casa
+    // inicial de Rei ou Torre, aplicando ao hash a diferença:
+    private void updateCastlingRights(int move) {
+        if (((Bitboards.bit(Move.from(move)) | Bitboards.bit(Move.to(move))) & CASTLING_SQUARES) != 0) {
+            int rights = computeCastlingRights();
+            stateKey ^= Zobrist.castling(castlingRights ^ rights);
+            castlingRights = rights;
+        }
+    }
+
+    private int computeCastlingRights() {
+        int rights = 0;
+        if (unmoved(60, PieceType.KING, Color.WHITE)) {
+            if (unmoved(63, PieceType.ROOK, Color.WHITE)) rights |= WHITE_KINGSIDE;
+            if (unmoved(56, PieceType.ROOK, Color.WHITE)) rights |= WHITE_QUEENSIDE;
+        }
+        if (unmoved(4, PieceType.KING, Color.BLACK)) {
+            if (unmoved(7, PieceType.ROOK, Color.BLACK)) rights |= BLACK_KINGSIDE;
+            if (unmoved(0, PieceType.ROOK, Color.BLACK)) rights |= BLACK_QUEENSIDE;
+        }
+        return rights;
+    }
+
+    // testar se a casa tem a peça indicada ainda sem movimentos:
+    private boolean unmoved(int square, PieceType type, Color color) {
+        ChessPiece p = board.piece(square);
+        return p != null && p.getType() == type && p.getColor() == color && p.getMoveCount() == 0;
+    }
+
+    // troca do peão vulnerável ao En-Passant, atualizando a coluna no hash:
+    private void setEnPassantVulnerable(ChessPiece pawn) {
+        if (enPassantFile >= 0) {
+            stateKey ^= Zobrist.enPassant(enPassantFile);
+        }
+        enPassantVulnerable = pawn;
+        enPassantFile = (pawn != null) ? Bitboards.column(pawn.getSquare()) : -1;
+        if (enPassantFile >= 0) {
+            stateKey ^= Zobrist.enPassant(enPassantFile);
+        }
+    }
+
+/*===========================================================================*/
+// FEN
+
+    // peça lida da FEN, já com a contagem de movimentos que expressa o avanço
+    // duplo dos peões:
+    void placeFenPiece(PieceType type, Color color, int square, int moveCount) {
+        if (board.piece(square) != null) {
+            throw new ChessException("Invalid FEN: square " + Move.squareName(square) + " is already occupied.");
+        }
+        ChessPiece p = newPiece(type, color);
+        p.setMoveCount(moveCount);
+        board.placePiece(p, square);
+    }
+
+    // estado lido da FEN, aplicado depois das peças: os direitos de roque
+    // zeram as contagens do Rei e da Torre correspondentes, e o destino do
+    // En-Passant indica o peão vulnerável logo à sua frente:
+    void setFenState(Color side, int rights, int enPassant, int halfMoveClock, int fullMoveNumber) {
+        for (Color color : Color.values()) {
+            if (Long.bitCount(board.pieces(color, PieceType.KING)) != 1) {
+                throw new ChessException("Invalid FEN: there must be exactly one " + color + " King.");
+            }
         }
+        allowCastling(rights, WHITE_KINGSIDE, 60, 63, Color.WHITE);
+        allowCastling(rights, WHITE_QUEENSIDE, 60, 56, Color.WHITE);
+        allowCastling(rights, BLACK_KINGSIDE, 4, 7, Color.BLACK);
+        allowCastling(rights, BLACK_QUEENSIDE, 4, 0, Color.BLACK);
 
-        // En-Passant:
-        if (p instanceof Pawn) {
-            if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-                ChessPiece pawn = (ChessPiece)board.removePiece(target);
-                Position pawnPosition;
-                if (p.getColor() == Color.WHITE) {
-                    pawnPosition = new Position(3, target.getColumn());
-                }
-                else {
-                    pawnPosition = new Position(4, target.getColumn());
-                }
-                board.placePiece(pawn, pawnPosition);
+        currentPlayer = side;
+        turn = 2 * (fullMoveNumber - 1) + ((side == Color.WHITE) ? 1 : 2);
+        promoted = null;
+        enPassantVulnerable = null;
+        enPassantFile = -1;
+        this.halfMoveClock = halfMoveClock;
+        castlingRights = computeCastlingRights();
+        stateKey = Zobrist.castling(castlingRights);
+        if (side == Color.WHITE) {
+            stateKey ^= Zobrist.whiteToMove();
+        }
+
+        if (enPassant >= 0) {
+            // destino na 6ª linha com as brancas a jogar, ou na 3ª com as
+            // pretas:
+            int row = Bitboards.row(enPassant);
+            ChessPiece pawn = board.piece(enPassant + ((side == Color.WHITE) ? 8 : -8));
+            if (row != ((side == Color.WHITE) ? 2 : 5) || pawn == null || pawn.getType() != PieceType.PAWN || pawn.getColor() == side) {
+                throw new ChessException("Invalid FEN: no pawn can be captured en passant on " + Move.squareName(enPassant) + ".");
             }
+            setEnPassantVulnerable(pawn);
         }
+
+        if (testCheck(opponent(side))) {
+            throw new ChessException("Invalid FEN: the side not to move is in check.");
+        }
+        check = testCheck(side);
+        boolean noMoves = legalMoveGenerator.generate(side, moveBuffer) == 0;
+        checkMate = check && noMoves;
+        staleMate = !check && noMoves;
+        draw = !noMoves && testDraw();
+        publish();
+    }
+
+    // direito de roque da FEN: Rei e Torre nas casas iniciais, sem
+    // movimentos:
+    private void allowCastling(int rights, int right, int kingSquare, int rookSquare, Color color) {
+        if ((rights & right) == 0) {
+            return;
+        }
+        ChessPiece king = board.piece(kingSquare);
+        ChessPiece rook = board.piece(rookSquare);
+        if (king == null || king.getType() != PieceType.KING || king.getColor() != color
+                || rook == null || rook.getType() != PieceType.ROOK || rook.getColor() != color) {
+            throw new ChessException("Invalid FEN: castling right without King and Rook on their initial squares.");
+        }
+        king.setMoveCount(0);
+        rook.setMoveCount(0);
     }
 
 /*===========================================================================*/
@@ -306,85 +908,51 @@ public class ChessMatch {
     private void nextTurn() {
         // incrementa turno:
         turn++;
+        // troca do lado a jogar no hash:
+        stateKey ^= Zobrist.whiteToMove();
         // troca de jogador com condiconal ternária: se o currentPlayer for
         // igual a branco, então vira preto, ':' do contrário, branco:
         currentPlayer = (currentPlayer == Color.WHITE) ? Color.BLACK : Color.WHITE;
     }
 
+    // reversão de nextTurn, chamada em undoMove():
+    private void previousTurn() {
+        turn--;
+        stateKey ^= Zobrist.whiteToMove();
+        currentPlayer = opponent(currentPlayer);
+    }
+
     // método para identificar o oponente pela cor:
     private Color opponent(Color color) {
         return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
     }
 
-    // método para rastrear o rei de cada cor, filtrando com expressão lambda:
-    private ChessPiece king(Color color) {
-        // listar todas as peças da cor do parâmetro do método:
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() ==  color).collect(Collectors.toList());
-        for (Piece p : list) {
-            // com o foreach, checar se a peça é rei com 'instanceof King' e
-            // retorná-lo:
-            if (p instanceof King) {
-                return (ChessPiece)p;
-            }
-        }
-        throw new IllegalStateException("There is no " + color + " King on the board.");
-    }
-
     // método para testar se algum rei está em cheque, chamado em
     // performChessMove:
-    private boolean testCheck(Color color) {
-        Position kingPosition = king(color).getChessPosition().toPosition();
-        // listar todas as peças oponentes à cor do parâmetro do método:
-        List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == opponent(color)). collect(Collectors.toList());
-        for (Piece p : opponentPieces) {
-            // com o foreach, checar se algum destino possível de cada peça
-            // adversária leva à posição do rei:
-            boolean[][] mat = p.possibleMoves();
-            // se alguma posição na matriz de alvos possíveis da peça em
-            // verificação coincidir com a posição do rei, retornar true:
-            if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-                return true;
-            }
+    boolean testCheck(Color color) {
+        // casa do rei, mantida diretamente pelo tabuleiro:
+        int square = board.kingSquare(color);
+        if (square < 0) {
+            throw new IllegalStateException("There is no " + color + " King on the board.");
         }
-        // caso o foreach se esgote sem a coincidência acima, retornar false:
-        return false;
+        // consulta a partir da casa do rei, sem gerar os ataques do oponente:
+        return board.isSquareAttacked(square, opponent(color));
     }
 
     // método para identificar o cheque-mate:
-    private boolean testCheckMate(Color color) {
+    boolean testCheckMate(Color color) {
         // testar se não está em cheque:
         if (!testCheck(color)) {
             return false;
         }
-        // listar todas as peças na cor do parâmetro do método:
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() ==  color).collect(Collectors.toList());
-        // foreach para percorrer cada uma das as peças da lista acima e...
-        for (Piece p : list) {
-            // checar movimentos possíveis da peça em verificação:
-            boolean[][] mat = p.possibleMoves();
-            for (int i=0; i < board.getRows(); i++) {
-                for (int j=0; j < board.getColumns(); j++) {
-                    if (mat[i][j]) {
-                        // esse movimento da peça em verificação desfaz o
-                        // cheque? realizar movimento simulado para teste
-                        // da posição em verificação:
-                        Position source = ((ChessPiece)p).getChessPosition().toPosition();
-                        Position target = new Position(i, j);
-                        Piece capturedPiece = makeMove(source, target);
-                        // verificar de está em cheque:
-                        boolean testCheck = testCheck(color);
-                        // desfazer movimento:
-                        undoMove(source, target, capturedPiece);
-                        // se não estiver em cheque com o movimento em teste
-                        // retornar falso para testCheckMate:
-                        if (!testCheck) {
-                            return false;
-                        }
-                    }
-                }
-            }
-        }
-        return true;
+        // em cheque, é mate se nenhum movimento legal o desfaz:
+        return legalMoveGenerator.generate(color, moveBuffer) == 0;
+    }
+
+    // método para identificar o afogamento: sem cheque e sem movimentos
+    // legais:
+    boolean testStaleMate(Color color) {
+        return !testCheck(color) && legalMoveGenerator.generate(color, moveBuffer) == 0;
     }
 
     // método para controlar as peças no tabuleiro, recebendo a posição no
@@ -392,8 +960,6 @@ public class ChessMatch {
     // matriz, com o método 'toPosition()':
     private void placeNewPiece(char column, int row, ChessPiece piece) {
         board.placePiece(piece, new ChessPosition(column, row).toPosition());
-        // atualizar lista de peças no tabuleiro:
-        piecesOnTheBoard.add(piece);
     }
 
 /*===========================================================================*/
@@ -404,7 +970,7 @@ public class ChessMatch {
         placeNewPiece('b', 1, new Knight(board, Color.WHITE));
         placeNewPiece('c', 1, new Bishop(board, Color.WHITE));
         placeNewPiece('d', 1, new Queen(board, Color.WHITE));
-        placeNewPiece('e', 1, new King(board, Color.WHITE, this));
+        placeNewPiece('e', 1, new King(board, Color.WHITE));
         placeNewPiece('f', 1, new Bishop(board, Color.WHITE));
         placeNewPiece('g', 1, new Knight(board, Color.WHITE));
         placeNewPiece('h', 1, new Rook(board, Color.WHITE));
@@ -421,7 +987,7 @@ public class ChessMatch {
         placeNewPiece('b', 8, new Knight(board, Color.BLACK));
         placeNewPiece('c', 8, new Bishop(board, Color.BLACK));
         placeNewPiece('d', 8, new Queen(board, Color.BLACK));
-        placeNewPiece('e', 8, new King(board, Color.BLACK, this));
+        placeNewPiece('e', 8, new King(board, Color.BLACK));
         placeNewPiece('f', 8, new Bishop(board, Color.BLACK));
         placeNewPiece('g', 8, new Knight(board, Color.BLACK));
         placeNewPiece('h', 8, new Rook(board, Color.BLACK));
@@ -18,6 +18,9 @@ public abstract class ChessPiece extends Piece {
         return color;
     }
 
+    // tipo da peça, usado como índice dos bitboards do tabuleiro:
+    public abstract PieceType getType();
+
     public int getMoveCount() {
         return moveCount;
     }
@@ -30,6 +33,62 @@ public abstract class ChessPiece extends Piece {
         moveCount--;
     }
 
+    // usado ao copiar ou montar partidas a partir de posições arbitrárias:
+    void setMoveCount(int moveCount) {
+        this.moveCount = moveCount;
+    }
+
+    // casa da peça no índice dos bitboards (linha * 8 + coluna):
+    public int getSquare() {
+        return Bitboards.square(position.getRow(), position.getColumn());
+    }
+
+    protected ChessBoard getChessBoard() {
+        return (ChessBoard)getBoard();
+    }
+
+    // destinos possíveis da peça como bitboard, sem alocação, a serem
+    // determinados em cada subclasse de peça:
+    public abstract long possibleTargets();
+
+    // escrita dos movimentos da peça, codificados por Move, no buffer
+    // recebido a partir da posição 'count', retornando a nova contagem:
+    public int generateMoves(int[] moves, int count) {
+        return generateMoves(moves, count, -1L);
+    }
+
+    // idem, apenas para destinos dentro da máscara (usada pelo gerador legal
+    // para cravadas e evasões de cheque); subclasses com movimentos
+    // especiais sobrescrevem para marcá-los:
+    public int generateMoves(int[] moves, int count, long mask) {
+        int from = getSquare();
+        for (long b = possibleTargets() & mask; b != 0; b &= b - 1) {
+            moves[count++] = Move.encode(from, Long.numberOfTrailingZeros(b), 0);
+        }
+        return count;
+    }
+
+    // conversão dos destinos possíveis para a matriz usada pela UI:
+    @Override
+    public boolean[][] possibleMoves() {
+        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+        for (long b = possibleTargets(); b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            mat[Bitboards.row(sq)][Bitboards.column(sq)] = true;
+        }
+        return mat;
+    }
+
+    @Override
+    public boolean possibleMove(Position position) {
+        return (possibleTargets() & Bitboards.bit(Bitboards.square(position.getRow(), position.getColumn()))) != 0;
+    }
+
+    @Override
+    public boolean isThereAnyPossibleMove() {
+        return possibleTargets() != 0;
+    }
+
     // método que chama o conversor de posições na matriz para posições no
     // tabuleiro:
     public ChessPosition getChessPosition() {
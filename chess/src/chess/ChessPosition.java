@@ -33,6 +33,16 @@ public class ChessPosition {
         return new ChessPosition((char)('a' + position.getColumn()), 8 - position.getRow());
     }
 
+    // conversão a partir do índice de casa dos bitboards (a8 = 0, h1 = 63):
+    public static ChessPosition fromSquare(int square) {
+        return new ChessPosition((char)('a' + Bitboards.column(square)), 8 - Bitboards.row(square));
+    }
+
+    // índice de casa dos bitboards correspondente:
+    public int toSquare() {
+        return Bitboards.square(8 - row, column - 'a');
+    }
+
     @Override
     public String toString() {
         // iniciar com string vazia para o compilador entender que é uma
@@ -0,0 +1,235 @@
+package chess;
+
+// leitura e escrita de posições no formato FEN (Forsyth-Edwards Notation),
+// percorrendo os caracteres diretamente, sem expressões regulares e sem criar
+// strings intermediárias por campo ou por caractere:
+public final class Fen {
+
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // tipos de peça indexados pela letra minúscula da FEN:
+    private static final PieceType[] TYPES = new PieceType[128];
+    // letras das peças, indexadas por cor e tipo como nos bitboards:
+    private static final char[] LETTERS = {'p', 'n', 'b', 'r', 'q', 'k', 'P', 'N', 'B', 'R', 'Q', 'K'};
+
+    static {
+        TYPES['p'] = PieceType.PAWN;
+        TYPES['n'] = PieceType.KNIGHT;
+        TYPES['b'] = PieceType.BISHOP;
+        TYPES['r'] = PieceType.ROOK;
+        TYPES['q'] = PieceType.QUEEN;
+        TYPES['k'] = PieceType.KING;
+    }
+
+    private Fen() {
+    }
+
+    // montagem da partida recebida, vazia, a partir da FEN; os direitos de
+    // roque viram contagens de movimentos zeradas no Rei e nas Torres:
+    static void load(ChessMatch chessMatch, CharSequence fen) {
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        // campo 1: peças, da linha 8 para a 1:
+        int row = 0;
+        int column = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (column != 8 || ++row > 7) {
+                    throw invalid(fen, "wrong number of squares in a rank");
+                }
+                column = 0;
+            }
+            else if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > 8) {
+                    throw invalid(fen, "too many squares in a rank");
+                }
+            }
+            else {
+                PieceType type = (c < 128) ? TYPES[c | 0x20] : null;
+                if (type == null || column > 7) {
+                    throw invalid(fen, "unexpected character '" + c + "'");
+                }
+                Color color = (c < 'a') ? Color.WHITE : Color.BLACK;
+                if (type == PieceType.PAWN && (row == 0 || row == 7)) {
+                    throw invalid(fen, "pawn on the first or last rank");
+                }
+                // só peões na linha inicial mantêm o avanço duplo:
+                int startRow = (color == Color.WHITE) ? 6 : 1;
+                int moveCount = (type == PieceType.PAWN && row == startRow) ? 0 : 1;
+                chessMatch.placeFenPiece(type, color, Bitboards.square(row, column), moveCount);
+                column++;
+            }
+        }
+        if (row != 7 || column != 8) {
+            throw invalid(fen, "board must have 8 ranks of 8 squares");
+        }
+
+        // campo 2: lado a jogar:
+        i = skipSpaces(fen, i);
+        if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+            throw invalid(fen, "side to move must be 'w' or 'b'");
+        }
+        Color side = (fen.charAt(i++) == 'w') ? Color.WHITE : Color.BLACK;
+
+        // campo 3: direitos de roque:
+        i = skipSpaces(fen, i);
+        int rights = 0;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        }
+        else {
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                switch (fen.charAt(i)) {
+                    case 'K': rights |= ChessMatch.WHITE_KINGSIDE; break;
+                    case 'Q': rights |= ChessMatch.WHITE_QUEENSIDE; break;
+                    case 'k': rights |= ChessMatch.BLACK_KINGSIDE; break;
+                    case 'q': rights |= ChessMatch.BLACK_QUEENSIDE; break;
+                    default: throw invalid(fen, "unexpected castling character '" + fen.charAt(i) + "'");
+                }
+            }
+        }
+
+        // campo 4: casa de destino do En-Passant:
+        i = skipSpaces(fen, i);
+        int enPassant = -1;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        }
+        else if (i + 1 < length) {
+            char c = fen.charAt(i);
+            char r = fen.charAt(i + 1);
+            if (c < 'a' || c > 'h' || (r != '3' && r != '6')) {
+                throw invalid(fen, "invalid en passant square");
+            }
+            enPassant = Bitboards.square(8 - (r - '0'), c - 'a');
+            i += 2;
+        }
+
+        // campos 5 e 6, opcionais: meios-lances desde a última captura ou
+        // movimento de peão e número do lance:
+        i = skipSpaces(fen, i);
+        int halfMoveClock = 0;
+        if (i < length) {
+            halfMoveClock = parseNumber(fen, i);
+            i = skipSpaces(fen, skipDigits(fen, i));
+        }
+        int fullMoveNumber = 1;
+        if (i < length) {
+            fullMoveNumber = parseNumber(fen, i);
+            i = skipSpaces(fen, skipDigits(fen, i));
+        }
+        if (i < length) {
+            throw invalid(fen, "unexpected trailing characters");
+        }
+
+        chessMatch.setFenState(side, rights, enPassant, halfMoveClock, Math.max(fullMoveNumber, 1));
+    }
+
+    // escrita da posição atual da partida em FEN, no buffer recebido:
+    public static StringBuilder append(ChessMatch chessMatch, StringBuilder sb) {
+        appendPlacement(sb, chessMatch.getBoard(), null);
+        // o destino do En-Passant fica atrás do peão vulnerável:
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        int enPassant = (vulnerable == null) ? -1 : vulnerable.getSquare() + ((vulnerable.getColor() == Color.WHITE) ? 8 : -8);
+        return appendState(sb, chessMatch.getCurrentPlayer(), chessMatch.getCastlingRights(), enPassant, chessMatch.getHalfMoveClock(),
+            chessMatch.getFullMoveNumber());
+    }
+
+    // escrita de um retrato imutável da partida:
+    public static StringBuilder append(Snapshot snapshot, StringBuilder sb) {
+        appendPlacement(sb, null, snapshot);
+        return appendState(sb, snapshot.getSideToMove(), snapshot.getCastlingRights(), snapshot.getEnPassantSquare(), snapshot.getHalfMoveClock(),
+            snapshot.getFullMoveNumber());
+    }
+
+    // peças, lidas do tabuleiro ou do retrato (o outro é null):
+    private static void appendPlacement(StringBuilder sb, ChessBoard board, Snapshot snapshot) {
+        for (int row=0; row < 8; row++) {
+            int empty = 0;
+            for (int column=0; column < 8; column++) {
+                int square = Bitboards.square(row, column);
+                int index;
+                if (snapshot != null) {
+                    index = snapshot.pieceIndex(square);
+                }
+                else {
+                    ChessPiece p = board.piece(square);
+                    index = (p == null) ? -1 : p.getColor().ordinal() * 6 + p.getType().ordinal();
+                }
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    sb.append((char)('0' + empty));
+                    empty = 0;
+                }
+                sb.append(LETTERS[index]);
+            }
+            if (empty > 0) {
+                sb.append((char)('0' + empty));
+            }
+            if (row < 7) {
+                sb.append('/');
+            }
+        }
+    }
+
+    // lado a jogar, roques, destino do En-Passant (-1 se nenhum) e contadores:
+    private static StringBuilder appendState(StringBuilder sb, Color side, int rights, int enPassant, int halfMoveClock, int fullMoveNumber) {
+        sb.append(' ').append(side == Color.WHITE ? 'w' : 'b').append(' ');
+
+        if (rights == 0) {
+            sb.append('-');
+        }
+        else {
+            if ((rights & ChessMatch.WHITE_KINGSIDE) != 0) sb.append('K');
+            if ((rights & ChessMatch.WHITE_QUEENSIDE) != 0) sb.append('Q');
+            if ((rights & ChessMatch.BLACK_KINGSIDE) != 0) sb.append('k');
+            if ((rights & ChessMatch.BLACK_QUEENSIDE) != 0) sb.append('q');
+        }
+        sb.append(' ');
+
+        if (enPassant < 0) {
+            sb.append('-');
+        }
+        else {
+            sb.append((char)('a' + Bitboards.column(enPassant))).append((char)('8' - Bitboards.row(enPassant)));
+        }
+
+        return sb.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+    }
+
+    private static int skipSpaces(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(CharSequence fen, int i) {
+        int end = skipDigits(fen, i);
+        if (end == i || end - i > 6) {
+            throw invalid(fen, "invalid move counter");
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            value = value * 10 + (fen.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static ChessException invalid(CharSequence fen, String reason) {
+        return new ChessException("Invalid FEN (" + reason + "): " + fen);
+    }
+}
@@ -0,0 +1,133 @@
+package chess;
+
+// gerador de movimentos estritamente legais: calcula antes as peças que dão
+// cheque, a máscara de evasão e as peças cravadas contra o próprio Rei, de
+// modo que nenhum movimento ilegal é gerado e nenhuma jogada precisa ser
+// feita e desfeita para testar o cheque:
+class LegalMoveGenerator {
+
+    private ChessMatch chessMatch;
+    private ChessBoard board;
+    // linha de cravada (casas entre Rei e atacante, mais o atacante) de cada
+    // peça cravada, válida apenas para as casas marcadas em 'pinned':
+    private long[] pinRays = new long[64];
+
+    LegalMoveGenerator(ChessMatch chessMatch, ChessBoard board) {
+        this.chessMatch = chessMatch;
+        this.board = board;
+    }
+
+    int generate(Color us, int[] moves) {
+        return generate(us, moves, -1L);
+    }
+
+    // apenas movimentos para as casas de 'targets' (todas com -1L), mais as
+    // capturas En-Passant; o Roque só é gerado sem restrição:
+    int generate(Color us, int[] moves, long targets) {
+        Color them = (us == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        int kingSquare = board.kingSquare(us);
+        long own = board.occupancy(us);
+        long occupied = board.getOccupied();
+        int count = 0;
+
+        // movimentos do Rei: destinos não atacados, com o Rei fora da
+        // ocupação para que não bloqueie o raio que o ataca:
+        long withoutKing = occupied ^ Bitboards.bit(kingSquare);
+        for (long b = Bitboards.kingAttacks(kingSquare) & ~own & targets; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b);
+            if (board.attackersTo(to, them, withoutKing) == 0) {
+                moves[count++] = Move.encode(kingSquare, to, 0);
+            }
+        }
+
+        long checkers = board.attackersTo(kingSquare, them, occupied);
+        // cheque duplo: só o Rei pode mover-se:
+        if (Long.bitCount(checkers) > 1) {
+            return count;
+        }
+
+        // Roque: King já exige Rei fora de cheque e casa atravessada livre de
+        // ataque; falta a casa de destino:
+        if (checkers == 0 && targets == -1L) {
+            ChessPiece king = board.piece(kingSquare);
+            for (long b = king.possibleTargets() & ~Bitboards.kingAttacks(kingSquare); b != 0; b &= b - 1) {
+                int to = Long.numberOfTrailingZeros(b);
+                if (!board.isSquareAttacked(to, them)) {
+                    moves[count++] = Move.encode(kingSquare, to, Move.CASTLING);
+                }
+            }
+        }
+
+        // em cheque simples, as demais peças só podem capturar o atacante ou
+        // bloquear o raio entre ele e o Rei:
+        long evasion = targets;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            evasion &= checkers | Bitboards.between(kingSquare, checker);
+        }
+
+        long pinned = pinnedPieces(us, them, kingSquare, own, occupied);
+
+        // destino do En-Passant, tratado à parte para os peões por remover
+        // duas peças da mesma linha:
+        int epTarget = -1;
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        if (vulnerable != null && vulnerable.getColor() == them) {
+            int v = vulnerable.getSquare();
+            epTarget = (us == Color.WHITE) ? v - 8 : v + 8;
+        }
+        long epMask = (epTarget >= 0) ? ~Bitboards.bit(epTarget) : -1L;
+        long pawns = board.pieces(us, PieceType.PAWN);
+
+        for (long b = own & ~Bitboards.bit(kingSquare); b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            long mask = evasion;
+            if ((pawns & Bitboards.bit(sq)) != 0) {
+                mask &= epMask;
+            }
+            if ((pinned & Bitboards.bit(sq)) != 0) {
+                mask &= pinRays[sq];
+            }
+            count = board.piece(sq).generateMoves(moves, count, mask);
+        }
+
+        if (epTarget >= 0) {
+            count = generateEnPassant(us, them, kingSquare, epTarget, vulnerable.getSquare(), moves, count);
+        }
+        return count;
+    }
+
+    // peças da cor cravadas por Torres, Bispos e Rainhas adversárias: únicas
+    // peças entre o Rei e um atacante deslizante alinhado:
+    private long pinnedPieces(Color us, Color them, int kingSquare, long own, long occupied) {
+        long queens = board.pieces(them, PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, 0L) & (board.pieces(them, PieceType.ROOK) | queens))
+            | (Bitboards.bishopAttacks(kingSquare, 0L) & (board.pieces(them, PieceType.BISHOP) | queens));
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            long between = Bitboards.between(kingSquare, sniper);
+            long blockers = between & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+                pinned |= blockers;
+                pinRays[Long.numberOfTrailingZeros(blockers)] = between | Bitboards.bit(sniper);
+            }
+        }
+        return pinned;
+    }
+
+    // capturas En-Passant, conferidas com a ocupação resultante (peão que
+    // captura e peão capturado fora, casa de destino ocupada), o que cobre
+    // cravadas na horizontal e cheques do próprio peão capturado:
+    private int generateEnPassant(Color us, Color them, int kingSquare, int epTarget, int capturedSquare, int[] moves, int count) {
+        long capturers = Bitboards.pawnAttacks(them, epTarget) & board.pieces(us, PieceType.PAWN);
+        for (; capturers != 0; capturers &= capturers - 1) {
+            int from = Long.numberOfTrailingZeros(capturers);
+            long occupied = (board.getOccupied() ^ Bitboards.bit(from) ^ Bitboards.bit(capturedSquare)) | Bitboards.bit(epTarget);
+            if ((board.attackersTo(kingSquare, them, occupied) & ~Bitboards.bit(capturedSquare)) == 0) {
+                moves[count++] = Move.encode(from, epTarget, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+}
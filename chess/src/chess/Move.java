@@ -0,0 +1,88 @@
+package chess;
+
+// codificação de movimentos em um int, sem alocação de objetos:
+// bits 0-5 casa de origem, bits 6-11 casa de destino, bits 12-15 marcadores
+// e bits 16-18 tipo da peça de promoção (PieceType.ordinal()):
+public final class Move {
+
+    public static final int CASTLING = 1 << 12;
+    public static final int EN_PASSANT = 1 << 13;
+    public static final int PROMOTION = 1 << 14;
+    public static final int DOUBLE_PUSH = 1 << 15;
+
+    // maior quantidade de movimentos pseudo-legais numa posição válida, com
+    // folga; usado para dimensionar os buffers de movimentos:
+    public static final int MAX_MOVES = 256;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    public static int encodePromotion(int from, int to, PieceType type) {
+        return from | (to << 6) | PROMOTION | (type.ordinal() << 16);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & PROMOTION) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    public static PieceType promotion(int move) {
+        return TYPES[(move >>> 16) & 7];
+    }
+
+    // forma compacta em 16 bits, para arquivos: origem e destino como no
+    // int e, nos bits 12-14, o tipo da peça de promoção (0 sem promoção,
+    // já que o peão nunca é escolhido); os marcadores são recalculados a
+    // partir do tabuleiro ao jogar:
+    public static short compact(int move) {
+        int code = move & 0xFFF;
+        if (isPromotion(move)) {
+            code |= promotion(move).ordinal() << 12;
+        }
+        return (short)code;
+    }
+
+    // tipo da promoção da forma compacta, ou null:
+    public static PieceType compactPromotion(int code) {
+        int type = (code >>> 12) & 7;
+        return (type != 0) ? TYPES[type] : null;
+    }
+
+    // representação em coordenadas, como em "e2e4" ou "e7e8q":
+    public static String toString(int move) {
+        String s = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            s += "pnbrqk".charAt(promotion(move).ordinal());
+        }
+        return s;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char)('a' + Bitboards.column(square)) + (8 - Bitboards.row(square));
+    }
+}
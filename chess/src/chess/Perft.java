@@ -0,0 +1,93 @@
+package chess;
+
+// contagem de nós (perft) da árvore de movimentos legais até uma
+// profundidade, usada para validar a geração de movimentos contra contagens
+// conhecidas e para medir o desempenho de doMove e undoMove:
+public class Perft {
+
+    private ChessMatch chessMatch;
+    // um buffer de movimentos por nível da árvore, alocados uma única vez:
+    private int[][] moves;
+
+    public Perft(ChessMatch chessMatch, int maxDepth) {
+        this.chessMatch = chessMatch;
+        moves = new int[maxDepth + 1][Move.MAX_MOVES];
+    }
+
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] buffer = moves[depth];
+        int count = chessMatch.generateLegalMoves(buffer);
+        // no último nível basta a quantidade de movimentos legais:
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i=0; i < count; i++) {
+            chessMatch.doMove(buffer[i]);
+            nodes += perft(depth - 1);
+            chessMatch.undoMove();
+        }
+        return nodes;
+    }
+
+    // perft que confere, em cada nó, o hash Zobrist e as somas de
+    // PieceSquare incrementais contra os recalculados do zero, e a
+    // restauração da chave após undoMove:
+    public long perftCheckingKeys(int depth) {
+        long key = chessMatch.getZobristKey();
+        if (key != chessMatch.computeZobristKey()) {
+            throw new IllegalStateException("Incremental Zobrist key differs from recomputed key.");
+        }
+        checkScores();
+        if (depth == 0) {
+            return 1;
+        }
+        int[] buffer = moves[depth];
+        int count = chessMatch.generateLegalMoves(buffer);
+        long nodes = 0;
+        for (int i=0; i < count; i++) {
+            chessMatch.doMove(buffer[i]);
+            nodes += perftCheckingKeys(depth - 1);
+            chessMatch.undoMove();
+            if (chessMatch.getZobristKey() != key) {
+                throw new IllegalStateException("Zobrist key not restored after undoing " + Move.toString(buffer[i]) + ".");
+            }
+        }
+        return nodes;
+    }
+
+    private void checkScores() {
+        ChessBoard board = chessMatch.getBoard();
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (long b = board.getOccupied(); b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            ChessPiece p = board.piece(sq);
+            middlegame += PieceSquare.middlegame(p.getColor(), p.getType(), sq);
+            endgame += PieceSquare.endgame(p.getColor(), p.getType(), sq);
+            phase += PieceSquare.PHASE[p.getType().ordinal()];
+        }
+        if (middlegame != board.getMiddlegameScore() || endgame != board.getEndgameScore() || phase != board.getPhase()) {
+            throw new IllegalStateException("Incremental piece-square scores differ from recomputed scores.");
+        }
+    }
+
+    // contagem separada por movimento da raiz, para localizar divergências:
+    public long divide(int depth, StringBuilder out) {
+        int[] buffer = moves[depth];
+        int count = chessMatch.generateLegalMoves(buffer);
+        long total = 0;
+        for (int i=0; i < count; i++) {
+            chessMatch.doMove(buffer[i]);
+            long nodes = perft(depth - 1);
+            chessMatch.undoMove();
+            out.append(Move.toString(buffer[i])).append(": ").append(nodes).append(System.lineSeparator());
+            total += nodes;
+        }
+        return total;
+    }
+}
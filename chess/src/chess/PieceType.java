@@ -0,0 +1,11 @@
+package chess;
+
+// tipos de peça, na ordem usada como índice dos bitboards em ChessBoard:
+public enum PieceType {
+    PAWN,
+    KNIGHT,
+    BISHOP,
+    ROOK,
+    QUEEN,
+    KING;
+}
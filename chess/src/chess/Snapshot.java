@@ -0,0 +1,146 @@
+package chess;
+
+// retrato imutável de uma partida: os doze bitboards e o estado do jogo,
+// publicado pela ChessMatch numa referência volátil a cada performChessMove,
+// replacePromotedPiece e carga de posição. Qualquer número de threads pode
+// lê-lo sem travas enquanto a partida continua, sem copiar peças nem
+// matrizes; movimentos feitos com doMove (busca, perft) não são publicados:
+public final class Snapshot {
+
+    // bitboards indexados por [Color.ordinal() * 6 + PieceType.ordinal()],
+    // como em ChessBoard; nunca expostos:
+    private final long[] bitboards = new long[12];
+    private final long occupied;
+    private final Color sideToMove;
+    private final int turn;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+    private final boolean check;
+    private final boolean checkMate;
+    private final boolean staleMate;
+    private final boolean draw;
+    private final long zobristKey;
+    // número de publicações da partida, para leitores que acompanham as
+    // mudanças:
+    private final long version;
+
+    Snapshot(ChessMatch chessMatch, long version) {
+        ChessBoard board = chessMatch.getBoard();
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                bitboards[color.ordinal() * 6 + type.ordinal()] = board.pieces(color, type);
+            }
+        }
+        occupied = board.getOccupied();
+        sideToMove = chessMatch.getCurrentPlayer();
+        turn = chessMatch.getTurn();
+        castlingRights = chessMatch.getCastlingRights();
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        enPassantSquare = (vulnerable == null) ? -1 : vulnerable.getSquare() + ((vulnerable.getColor() == Color.WHITE) ? 8 : -8);
+        halfMoveClock = chessMatch.getHalfMoveClock();
+        fullMoveNumber = chessMatch.getFullMoveNumber();
+        check = chessMatch.getCheck();
+        checkMate = chessMatch.getCheckMate();
+        staleMate = chessMatch.getStaleMate();
+        draw = chessMatch.getDraw();
+        zobristKey = chessMatch.getZobristKey();
+        this.version = version;
+    }
+
+    public long pieces(Color color, PieceType type) {
+        return bitboards[color.ordinal() * 6 + type.ordinal()];
+    }
+
+    public long occupancy(Color color) {
+        long b = 0L;
+        for (int t=0; t < 6; t++) {
+            b |= bitboards[color.ordinal() * 6 + t];
+        }
+        return b;
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    // índice [Color.ordinal() * 6 + PieceType.ordinal()] da peça na casa,
+    // ou -1 se vazia:
+    int pieceIndex(int square) {
+        long b = Bitboards.bit(square);
+        if ((occupied & b) == 0) {
+            return -1;
+        }
+        for (int i=0; i < 12; i++) {
+            if ((bitboards[i] & b) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // tipo e cor da peça na casa, ou null se vazia:
+    public PieceType getPieceType(int square) {
+        int index = pieceIndex(square);
+        return (index < 0) ? null : PieceType.values()[index % 6];
+    }
+
+    public Color getPieceColor(int square) {
+        int index = pieceIndex(square);
+        return (index < 0) ? null : Color.values()[index / 6];
+    }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    // casa de destino do En-Passant, ou -1:
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    public boolean getCheck() {
+        return check;
+    }
+
+    public boolean getCheckMate() {
+        return checkMate;
+    }
+
+    public boolean getStaleMate() {
+        return staleMate;
+    }
+
+    public boolean getDraw() {
+        return draw;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String toFen() {
+        return Fen.append(this, new StringBuilder(90)).toString();
+    }
+}
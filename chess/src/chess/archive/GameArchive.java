@@ -0,0 +1,38 @@
+package chess.archive;
+
+// formato binário de arquivos de partidas, em big-endian:
+//
+//     cabeçalho do arquivo: "JCGA" e versão (2 bytes), 2 bytes reservados
+//     cada partida: meios-lances (2 bytes), resultado (1 byte), tamanho da
+//                   FEN inicial (1 byte, 0 para a posição inicial), a FEN em
+//                   ASCII e um código de 16 bits por meio-lance
+//                   (Move.compact)
+//
+// As etiquetas do PGN não são guardadas, só o que é preciso para repetir a
+// partida e o seu resultado:
+final class GameArchive {
+
+    static final int MAGIC = 0x4A434741;
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 8;
+    static final int GAME_HEADER = 4;
+    static final int MAX_PLIES = 0xFFFF;
+    static final int MAX_FEN = 0xFF;
+    // maior partida possível, que sempre cabe num bloco mapeado:
+    static final int MAX_GAME = GAME_HEADER + MAX_FEN + 2 * MAX_PLIES;
+
+    // resultados indexados pelo código gravado:
+    static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private GameArchive() {
+    }
+
+    static int resultCode(String result) {
+        for (int i=1; i < RESULTS.length; i++) {
+            if (RESULTS[i].equals(result)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,187 @@
+package chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Move;
+import chess.PieceType;
+
+// leitura de arquivos no formato de GameArchive, uma partida por chamada de
+// next(): o arquivo é mapeado em memória em blocos, e os códigos dos
+// movimentos são lidos diretamente do bloco mapeado, sem cópias nem
+// objetos por partida (a FEN só é convertida em String quando existe):
+public class GameArchiveReader implements Closeable {
+
+    // tamanho de cada bloco mapeado do arquivo:
+    private static final long CHUNK = 64L << 20;
+
+    // letras aceitas por replacePromotedPiece, indexadas por PieceType (o
+    // Cavalo é 'K'):
+    private static final String[] PROMOTIONS = {null, "K", "B", "R", "Q", null};
+
+    private FileChannel channel;
+    private long size;
+    // posição no arquivo do início do bloco mapeado:
+    private long base;
+    private MappedByteBuffer buffer;
+
+    // partida atual: posição dos códigos no bloco, meios-lances, resultado e
+    // FEN inicial:
+    private int movesOffset;
+    private int plies;
+    private int result;
+    private int fenOffset;
+    private int fenLength;
+    private long games;
+    private int[] moveBuffer = new int[Move.MAX_MOVES];
+
+    public GameArchiveReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        if (size < GameArchive.FILE_HEADER) {
+            channel.close();
+            throw new IOException("Invalid game archive: " + path + ".");
+        }
+        map(0);
+        if (buffer.getInt() != GameArchive.MAGIC || buffer.getShort() != GameArchive.VERSION) {
+            channel.close();
+            throw new IOException("Invalid game archive: " + path + ".");
+        }
+        movesOffset = GameArchive.FILE_HEADER;
+    }
+
+    private void map(long position) throws IOException {
+        base = position;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK, size - position));
+    }
+
+    // avança para a próxima partida; false no fim do arquivo:
+    public boolean next() throws IOException {
+        // a partida atual é pulada por inteiro:
+        buffer.position(movesOffset + 2 * plies);
+        long position = base + buffer.position();
+        if (position >= size) {
+            return false;
+        }
+        // uma partida nunca é maior que MAX_GAME: remapear antes que ela
+        // possa passar do fim do bloco:
+        if (buffer.remaining() < GameArchive.MAX_GAME && base + buffer.limit() < size) {
+            map(position);
+        }
+        if (buffer.remaining() < GameArchive.GAME_HEADER) {
+            throw new IOException("Truncated game archive at byte " + position + ".");
+        }
+        plies = buffer.getShort() & 0xFFFF;
+        result = buffer.get() & 0xFF;
+        fenLength = buffer.get() & 0xFF;
+        fenOffset = buffer.position();
+        movesOffset = fenOffset + fenLength;
+        if (result >= GameArchive.RESULTS.length || buffer.limit() - movesOffset < 2 * plies) {
+            throw new IOException("Invalid game archive at byte " + position + ".");
+        }
+        games++;
+        return true;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public int getPlies() {
+        return plies;
+    }
+
+    public String getResult() {
+        return GameArchive.RESULTS[result];
+    }
+
+    // FEN inicial, ou null se a partida começa na posição inicial:
+    public String getFen() {
+        if (fenLength == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[fenLength];
+        buffer.get(fenOffset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // código do meio-lance (Move.compact), lido do bloco mapeado:
+    public int getMoveCode(int ply) {
+        if (ply < 0 || ply >= plies) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " out of " + plies + ".");
+        }
+        return buffer.getShort(movesOffset + 2 * ply) & 0xFFFF;
+    }
+
+    // partida atual repetida com performChessMove na partida informada, que
+    // é recarregada na posição inicial; um código inválido interrompe a
+    // repetição com ChessException:
+    public void replay(ChessMatch chessMatch) {
+        chessMatch.loadFen((fenLength == 0) ? Fen.START_POSITION : getFen());
+        for (int i=0; i < plies; i++) {
+            int code = buffer.getShort(movesOffset + 2 * i) & 0xFFFF;
+            try {
+                chessMatch.performChessMove(ChessPosition.fromSquare(Move.from(code)), ChessPosition.fromSquare(Move.to(code)));
+                PieceType promotion = Move.compactPromotion(code);
+                if (promotion != null && promotion != PieceType.QUEEN) {
+                    chessMatch.replacePromotedPiece(PROMOTIONS[promotion.ordinal()]);
+                }
+            }
+            catch (ChessException e) {
+                throw new ChessException("Game " + games + ", ply " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // partida atual repetida com doMove, sem os testes de cheque-mate e
+    // afogamento de performChessMove a cada lance, para percorrer as posições
+    // de partidas já validadas; os códigos são conferidos apenas contra os
+    // movimentos pseudo-legais da peça, e a partida pode ser desfeita com
+    // undoMove:
+    public void replayMoves(ChessMatch chessMatch) {
+        chessMatch.loadFen((fenLength == 0) ? Fen.START_POSITION : getFen());
+        for (int i=0; i < plies; i++) {
+            int code = buffer.getShort(movesOffset + 2 * i) & 0xFFFF;
+            int move = toMove(chessMatch, code);
+            if (move == 0) {
+                throw new ChessException("Game " + games + ", ply " + (i + 1) + ": invalid move " + Move.squareName(Move.from(code))
+                    + Move.squareName(Move.to(code)) + ".");
+            }
+            chessMatch.doMove(move);
+        }
+    }
+
+    // movimento codificado por Move correspondente ao código, com os
+    // marcadores gerados pela própria peça, ou 0:
+    private int toMove(ChessMatch chessMatch, int code) {
+        ChessPiece piece = chessMatch.getBoard().piece(Move.from(code));
+        if (piece == null || piece.getColor() != chessMatch.getCurrentPlayer()) {
+            return 0;
+        }
+        PieceType promotion = Move.compactPromotion(code);
+        int count = piece.generateMoves(moveBuffer, 0);
+        for (int i=0; i < count; i++) {
+            int move = moveBuffer[i];
+            if (Move.to(move) == Move.to(code) && (promotion == null || Move.promotion(move) == promotion)) {
+                return move;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+}
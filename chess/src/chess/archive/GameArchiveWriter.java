@@ -0,0 +1,79 @@
+package chess.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import chess.Move;
+import chess.pgn.PgnGame;
+
+// gravação de partidas no formato binário de GameArchive, em sequência:
+public class GameArchiveWriter implements Closeable {
+
+    private DataOutputStream out;
+    private long games;
+    private long plies;
+
+    public GameArchiveWriter(Path path) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        out.writeInt(GameArchive.MAGIC);
+        out.writeShort(GameArchive.VERSION);
+        out.writeShort(0);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getPlies() {
+        return plies;
+    }
+
+    // partida lida de um PGN, até o último movimento válido:
+    public void write(PgnGame game) throws IOException {
+        int count = game.getMoveCount();
+        if (count > GameArchive.MAX_PLIES) {
+            throw new IllegalArgumentException("A game can have at most " + GameArchive.MAX_PLIES + " plies.");
+        }
+        writeHeader(game.getTag("FEN"), count, game.getResult());
+        for (int i=0; i < count; i++) {
+            out.writeShort(Move.compact(game.getMove(i)));
+        }
+        games++;
+        plies += count;
+    }
+
+    // partida a partir da FEN (null para a posição inicial), com os
+    // movimentos codificados por Move:
+    public void write(String fen, int[] moves, int count, String result) throws IOException {
+        if (count > GameArchive.MAX_PLIES) {
+            throw new IllegalArgumentException("A game can have at most " + GameArchive.MAX_PLIES + " plies.");
+        }
+        writeHeader(fen, count, result);
+        for (int i=0; i < count; i++) {
+            out.writeShort(Move.compact(moves[i]));
+        }
+        games++;
+        plies += count;
+    }
+
+    private void writeHeader(String fen, int count, String result) throws IOException {
+        byte[] fenBytes = (fen != null) ? fen.getBytes(StandardCharsets.US_ASCII) : new byte[0];
+        if (fenBytes.length > GameArchive.MAX_FEN) {
+            throw new IllegalArgumentException("FEN too long: " + fen + ".");
+        }
+        out.writeShort(count);
+        out.writeByte(GameArchive.resultCode(result));
+        out.writeByte(fenBytes.length);
+        out.write(fenBytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,129 @@
+package chess.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+
+// construção de um livro de aberturas no formato do Polyglot a partir de
+// partidas PGN: cada movimento dos primeiros 'maxPlies' meios-lances soma ao
+// seu peso 2 pontos se o lado que o jogou venceu, 1 no empate e 0 na derrota
+// (como no Polyglot); os pesos são reduzidos proporcionalmente quando não
+// cabem em 16 bits, e movimentos com peso 0 ficam de fora:
+public class BookBuilder {
+
+    private int maxPlies;
+    // pesos acumulados por chave da posição e movimento do Polyglot:
+    private Map<Long, Map<Integer, Long>> weights = new HashMap<>();
+    private long games;
+    // partidas descartadas por uma etiqueta FEN inválida:
+    private long skipped;
+
+    public BookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getPositions() {
+        return weights.size();
+    }
+
+    // soma as partidas válidas do arquivo PGN (de partidas inválidas, apenas
+    // os lances anteriores ao erro; com FEN inválida, nenhum):
+    public void addGames(Path pgn) throws IOException {
+        try (PgnReader reader = new PgnReader(pgn)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                addGame(game);
+            }
+        }
+    }
+
+    public void addGame(PgnGame game) {
+        int white = score(game.getResult(), Color.WHITE);
+        int black = score(game.getResult(), Color.BLACK);
+        // resultado desconhecido: peso neutro de empate para os dois lados:
+        if (white < 0) {
+            white = 1;
+            black = 1;
+        }
+        String fen = game.getTag("FEN");
+        ChessMatch chessMatch;
+        try {
+            chessMatch = (fen != null) ? new ChessMatch(fen) : new ChessMatch();
+        }
+        catch (ChessException e) {
+            skipped++;
+            return;
+        }
+        int plies = Math.min(game.getMoveCount(), maxPlies);
+        for (int i=0; i < plies; i++) {
+            int move = game.getMove(i);
+            int score = (chessMatch.getCurrentPlayer() == Color.WHITE) ? white : black;
+            weights.computeIfAbsent(OpeningBook.key(chessMatch), k -> new HashMap<>())
+                .merge(OpeningBook.toPolyglot(move), (long)score, Long::sum);
+            chessMatch.doMove(move);
+        }
+        games++;
+    }
+
+    // pontos do lado no resultado "1-0", "0-1" ou "1/2-1/2", ou -1 se
+    // desconhecido:
+    private static int score(String result, Color color) {
+        if (result.equals("1/2-1/2")) return 1;
+        if (result.equals("1-0")) return (color == Color.WHITE) ? 2 : 0;
+        if (result.equals("0-1")) return (color == Color.BLACK) ? 2 : 0;
+        return -1;
+    }
+
+    // escrita do livro ordenado pela chave sem sinal e, em cada posição, pelo
+    // peso decrescente; retorna a quantidade de entradas:
+    public long write(Path path) throws IOException {
+        long max = 1;
+        for (Map<Integer, Long> moves : weights.values()) {
+            for (long w : moves.values()) {
+                max = Math.max(max, w);
+            }
+        }
+        List<Long> keys = new ArrayList<>(weights.keySet());
+        keys.sort(Long::compareUnsigned);
+
+        long entries = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            for (long key : keys) {
+                List<Map.Entry<Integer, Long>> moves = new ArrayList<>(weights.get(key).entrySet());
+                moves.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+                for (Map.Entry<Integer, Long> e : moves) {
+                    int weight = (int)((max > 65535) ? e.getValue() * 65535 / max : e.getValue());
+                    if (weight == 0) {
+                        continue;
+                    }
+                    out.writeLong(key);
+                    out.writeShort(e.getKey());
+                    out.writeShort(weight);
+                    out.writeInt(0);
+                    entries++;
+                }
+            }
+        }
+        return entries;
+    }
+}
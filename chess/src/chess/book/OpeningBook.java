@@ -0,0 +1,173 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+import chess.Zobrist;
+
+// livro de aberturas no formato binário do Polyglot, mapeado em memória:
+// entradas de 16 bytes (chave de 8 bytes, movimento de 2, peso de 2 e
+// aprendizado de 4, big-endian) ordenadas pela chave sem sinal, procuradas
+// por busca binária. As chaves são as do Polyglot (Zobrist com os números
+// Random64 padrão), de modo que livros de outros programas também servem; a
+// consulta não aloca objetos e
+// usa buffers internos, por isso uma instância não deve ser compartilhada
+// entre threads:
+public class OpeningBook {
+
+    static final int ENTRY_SIZE = 16;
+
+    // peça de promoção pelo código do Polyglot (1 Cavalo a 4 Rainha, o mesmo
+    // valor de PieceType.ordinal()):
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private MappedByteBuffer buffer;
+    private int entries;
+
+    private int[] moves = new int[Move.MAX_MOVES];
+    private int[] weights = new int[Move.MAX_MOVES];
+
+    public OpeningBook(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid opening book size: " + size + " bytes.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            entries = (int)(size / ENTRY_SIZE);
+        }
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    // chave da posição no livro: o hash Zobrist da partida, mas com a coluna
+    // do En-Passant apenas quando um peão do lado a jogar pode capturar, como
+    // no Polyglot:
+    public static long key(ChessMatch chessMatch) {
+        long key = chessMatch.getZobristKey();
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        if (vulnerable != null) {
+            int square = vulnerable.getSquare();
+            int column = Bitboards.column(square);
+            long adjacent = ((column > 0) ? Bitboards.bit(square - 1) : 0L) | ((column < 7) ? Bitboards.bit(square + 1) : 0L);
+            if ((adjacent & chessMatch.getBoard().pieces(chessMatch.getCurrentPlayer(), PieceType.PAWN)) == 0) {
+                key ^= Zobrist.enPassant(column);
+            }
+        }
+        return key;
+    }
+
+    // movimentos do livro para a posição, codificados por Move, com os pesos
+    // correspondentes; retorna a quantidade escrita (0 fora do livro):
+    public int probe(ChessMatch chessMatch, int[] moves, int[] weights) {
+        long key = key(chessMatch);
+        int count = 0;
+        for (int i = lowerBound(key); i < entries && buffer.getLong(i * ENTRY_SIZE) == key && count < moves.length; i++) {
+            int move = fromPolyglot(chessMatch.getBoard(), buffer.getShort(i * ENTRY_SIZE + 8) & 0xFFFF);
+            if (move != 0) {
+                moves[count] = move;
+                weights[count] = buffer.getShort(i * ENTRY_SIZE + 10) & 0xFFFF;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // movimento do livro sorteado proporcionalmente aos pesos, ou 0 se a
+    // posição não está no livro:
+    public int pick(ChessMatch chessMatch, Random random) {
+        int count = probe(chessMatch, moves, weights);
+        int total = 0;
+        for (int i=0; i < count; i++) {
+            total += weights[i];
+        }
+        if (total == 0) {
+            return (count > 0) ? moves[0] : 0;
+        }
+        int r = random.nextInt(total);
+        for (int i=0; i < count; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return moves[i];
+            }
+        }
+        return moves[count - 1];
+    }
+
+    // primeira entrada com chave maior ou igual, na ordem sem sinal:
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(buffer.getLong(mid * ENTRY_SIZE), key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+/*===========================================================================*/
+// POLYGLOT MOVES
+
+    // movimento do Polyglot (bits 0-5 destino e 6-11 origem, com casas a
+    // partir de a1, e 12-14 promoção) para a codificação de Move, usando o
+    // tabuleiro para os marcadores; o Roque vem como Rei capturando a Torre:
+    static int fromPolyglot(ChessBoard board, int polyglot) {
+        int to = (polyglot & 63) ^ 56;
+        int from = ((polyglot >>> 6) & 63) ^ 56;
+        int promotion = (polyglot >>> 12) & 7;
+        ChessPiece p = board.piece(from);
+        if (p == null) {
+            return 0;
+        }
+        if (promotion > 0 && promotion < PROMOTIONS.length) {
+            return Move.encodePromotion(from, to, PROMOTIONS[promotion]);
+        }
+        if (p.getType() == PieceType.KING) {
+            ChessPiece rook = board.piece(to);
+            if (rook != null && rook.getType() == PieceType.ROOK && rook.getColor() == p.getColor()) {
+                return Move.encode(from, (to > from) ? from + 2 : from - 2, Move.CASTLING);
+            }
+        }
+        if (p.getType() == PieceType.PAWN) {
+            if (to == from + 16 || to == from - 16) {
+                return Move.encode(from, to, Move.DOUBLE_PUSH);
+            }
+            if (Bitboards.column(to) != Bitboards.column(from) && board.piece(to) == null) {
+                return Move.encode(from, to, Move.EN_PASSANT);
+            }
+        }
+        return Move.encode(from, to, 0);
+    }
+
+    // movimento codificado por Move no formato do Polyglot:
+    static int toPolyglot(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        // Roque: destino na casa da Torre:
+        if (Move.isCastling(move)) {
+            to = (to > from) ? from + 3 : from - 4;
+        }
+        int polyglot = (to ^ 56) | ((from ^ 56) << 6);
+        if (Move.isPromotion(move)) {
+            polyglot |= Move.promotion(move).ordinal() << 12;
+        }
+        return polyglot;
+    }
+}
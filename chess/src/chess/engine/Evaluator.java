@@ -0,0 +1,139 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceSquare;
+import chess.PieceType;
+
+// avaliação estática da posição, em centipeões, do ponto de vista do
+// jogador da vez: material e peça-casa mantidos incrementalmente pelo
+// tabuleiro, mais estrutura de peões e segurança do Rei calculadas sobre os
+// bitboards, todos com valores de meio-jogo e de final combinados pela fase
+// do jogo (avaliação afunilada):
+public class Evaluator {
+
+    // penalidades por peão dobrado (cada peão além do primeiro na coluna) e
+    // isolado (sem peões próprios nas colunas vizinhas), meio-jogo e final:
+    private static final int DOUBLED_MIDDLEGAME = 10;
+    private static final int DOUBLED_ENDGAME = 20;
+    private static final int ISOLATED_MIDDLEGAME = 10;
+    private static final int ISOLATED_ENDGAME = 15;
+
+    // bônus do peão passado pela fileira relativa (0 = primeira fileira da
+    // cor), somados ao avanço já valorizado em PieceSquare:
+    private static final int[] PASSED_MIDDLEGAME = {0, 0, 5, 10, 20, 35, 55, 0};
+    private static final int[] PASSED_ENDGAME = {0, 5, 10, 20, 35, 60, 90, 0};
+
+    // escudo de peões do Rei, por coluna em frente a ele: peão uma casa à
+    // frente não tem penalidade, duas casas à frente tem a menor e ausente a
+    // maior; colunas sem peões próprios perto do Rei são penalizadas à parte
+    // (só no meio-jogo):
+    private static final int SHIELD_ADVANCED = 10;
+    private static final int SHIELD_MISSING = 25;
+    private static final int SEMI_OPEN_FILE = 15;
+    private static final int OPEN_FILE = 25;
+
+    // máscaras das colunas e das colunas vizinhas, indexadas pela coluna:
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // casas à frente do peão na sua coluna e nas vizinhas, indexadas por
+    // [Color.ordinal()][casa]: sem peões adversários nelas, o peão é passado:
+    private static final long[][] PASSED_MASKS = new long[2][64];
+
+    static {
+        for (int col=0; col < 8; col++) {
+            FILES[col] = Bitboards.FILE_A << col;
+        }
+        for (int col=0; col < 8; col++) {
+            ADJACENT_FILES[col] = ((col > 0) ? FILES[col - 1] : 0L) | ((col < 7) ? FILES[col + 1] : 0L);
+        }
+        for (int sq=0; sq < 64; sq++) {
+            long span = FILES[Bitboards.column(sq)] | ADJACENT_FILES[Bitboards.column(sq)];
+            // brancas avançam para a fileira 8 (linha 0), pretas para a 1:
+            long whiteAhead = 0L;
+            long blackAhead = 0L;
+            for (int row=0; row < 8; row++) {
+                long rank = Bitboards.RANK_8 << (8 * row);
+                if (row < Bitboards.row(sq)) whiteAhead |= rank;
+                if (row > Bitboards.row(sq)) blackAhead |= rank;
+            }
+            PASSED_MASKS[Color.WHITE.ordinal()][sq] = span & whiteAhead;
+            PASSED_MASKS[Color.BLACK.ordinal()][sq] = span & blackAhead;
+        }
+    }
+
+    public static int evaluate(ChessMatch chessMatch) {
+        ChessBoard board = chessMatch.getBoard();
+        int middlegame = board.getMiddlegameScore();
+        int endgame = board.getEndgameScore();
+
+        // estrutura de peões e escudo do Rei, como saldo das brancas:
+        long whitePawns = board.pieces(Color.WHITE, PieceType.PAWN);
+        long blackPawns = board.pieces(Color.BLACK, PieceType.PAWN);
+        middlegame += pawnStructure(Color.WHITE, whitePawns, blackPawns, true) - pawnStructure(Color.BLACK, blackPawns, whitePawns, true);
+        endgame += pawnStructure(Color.WHITE, whitePawns, blackPawns, false) - pawnStructure(Color.BLACK, blackPawns, whitePawns, false);
+        middlegame += kingSafety(Color.WHITE, board.kingSquare(Color.WHITE), whitePawns, blackPawns)
+            - kingSafety(Color.BLACK, board.kingSquare(Color.BLACK), blackPawns, whitePawns);
+
+        // afunilamento: o meio-jogo pesa pela fase (limitada ao total, que
+        // promoções podem ultrapassar) e o final pelo restante:
+        int phase = Math.min(board.getPhase(), PieceSquare.TOTAL_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquare.TOTAL_PHASE - phase)) / PieceSquare.TOTAL_PHASE;
+        return (chessMatch.getCurrentPlayer() == Color.WHITE) ? score : -score;
+    }
+
+    // peões dobrados, isolados e passados da cor, no valor de meio-jogo ou
+    // de final:
+    private static int pawnStructure(Color color, long pawns, long enemyPawns, boolean middlegame) {
+        int score = 0;
+        for (int col=0; col < 8; col++) {
+            int count = Long.bitCount(pawns & FILES[col]);
+            if (count == 0) {
+                continue;
+            }
+            if (count > 1) {
+                score -= (count - 1) * (middlegame ? DOUBLED_MIDDLEGAME : DOUBLED_ENDGAME);
+            }
+            if ((pawns & ADJACENT_FILES[col]) == 0) {
+                score -= count * (middlegame ? ISOLATED_MIDDLEGAME : ISOLATED_ENDGAME);
+            }
+        }
+        long[] passedMasks = PASSED_MASKS[color.ordinal()];
+        for (long b = pawns; b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            if ((passedMasks[sq] & enemyPawns) == 0) {
+                int rank = (color == Color.WHITE) ? 7 - Bitboards.row(sq) : Bitboards.row(sq);
+                score += middlegame ? PASSED_MIDDLEGAME[rank] : PASSED_ENDGAME[rank];
+            }
+        }
+        return score;
+    }
+
+    // escudo de peões e colunas abertas junto ao Rei da cor, de meio-jogo;
+    // só avaliado com o Rei numa das alas e nas duas primeiras fileiras (no
+    // centro, os avanços dos peões centrais não devem ser penalizados):
+    private static int kingSafety(Color color, int kingSquare, long pawns, long enemyPawns) {
+        if (kingSquare < 0) {
+            return 0;
+        }
+        boolean white = color == Color.WHITE;
+        int row = Bitboards.row(kingSquare);
+        int kingColumn = Bitboards.column(kingSquare);
+        if ((white ? row < 6 : row > 1) || kingColumn == 3 || kingColumn == 4) {
+            return 0;
+        }
+        int forward = white ? -1 : 1;
+        int score = 0;
+        for (int col=Math.max(0, kingColumn - 1); col <= Math.min(7, kingColumn + 1); col++) {
+            if ((pawns & Bitboards.bit(Bitboards.square(row + forward, col))) == 0) {
+                score -= ((pawns & Bitboards.bit(Bitboards.square(row + 2 * forward, col))) != 0) ? SHIELD_ADVANCED : SHIELD_MISSING;
+            }
+            if ((pawns & FILES[col]) == 0) {
+                score -= ((enemyPawns & FILES[col]) == 0) ? OPEN_FILE : SEMI_OPEN_FILE;
+            }
+        }
+        return score;
+    }
+}
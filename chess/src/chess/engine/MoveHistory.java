@@ -0,0 +1,59 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.Color;
+import chess.Move;
+
+// heurísticas de ordenação aprendidas durante a busca, em vetores
+// primitivos: dois movimentos "killer" por ply (silenciosos que causaram
+// corte em posições irmãs) e a tabela "butterfly" de histórico, indexada
+// por [cor][origem][destino], com o bônus acumulado dos cortes de cada
+// movimento silencioso. Uma por Search, já que as threads do Lazy SMP não a
+// compartilham:
+class MoveHistory {
+
+    // acima deste valor, todo o histórico é reduzido à metade, mantendo as
+    // proporções e dando peso aos cortes mais recentes:
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    // killers indexados por ply * 2 (o mais recente primeiro):
+    private int[] killers = new int[Search.MAX_PLY * 2];
+    // histórico indexado por (Color.ordinal() * 64 + origem) * 64 + destino:
+    private int[] history = new int[2 * 64 * 64];
+
+    int killer(int ply, int slot) {
+        return killers[ply * 2 + slot];
+    }
+
+    int history(Color color, int move) {
+        return history[(color.ordinal() * 64 + Move.from(move)) * 64 + Move.to(move)];
+    }
+
+    // movimento silencioso que causou corte beta na profundidade restante:
+    void update(Color color, int move, int ply, int depth) {
+        int k = ply * 2;
+        if (killers[k] != move) {
+            killers[k + 1] = killers[k];
+            killers[k] = move;
+        }
+        int index = (color.ordinal() * 64 + Move.from(move)) * 64 + Move.to(move);
+        history[index] += depth * depth;
+        if (history[index] > HISTORY_LIMIT) {
+            age();
+        }
+    }
+
+    // no início de cada busca: killers descartados (as posições por ply
+    // mudaram) e histórico reduzido à metade:
+    void newSearch() {
+        Arrays.fill(killers, 0);
+        age();
+    }
+
+    private void age() {
+        for (int i=0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.Color;
+import chess.Move;
+
+// seletor em estágios dos movimentos legais de um nó, entregues um a um em
+// next(), do melhor ao pior provável: o movimento da tabela de
+// transposição, as capturas e promoções por MVV-LVA (vítima mais valiosa,
+// atacante menos valioso), os killers do ply e os silenciosos pelo
+// histórico. Cada estágio só é pontuado quando alcançado, e a escolha é
+// por seleção do maior a cada chamada, de modo que um corte logo nos
+// primeiros movimentos não paga a ordenação dos demais. Um seletor por ply,
+// reaproveitado entre nós:
+class MovePicker {
+
+    private static final int HASH = 0;
+    private static final int CAPTURES_INIT = 1;
+    private static final int CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int QUIETS_INIT = 4;
+    private static final int QUIETS = 5;
+    private static final int DONE = 6;
+
+    private MoveHistory history;
+    private int[] scores = new int[Move.MAX_MOVES];
+
+    private ChessBoard board;
+    private Color color;
+    private int[] moves;
+    private int count;
+    private int hashMove;
+    private int ply;
+    // na quiescência, só o estágio das capturas:
+    private boolean capturesOnly;
+
+    private int stage;
+    // próximo índice do estágio atual e fim das capturas, que ficam no
+    // início do vetor depois de CAPTURES_INIT:
+    private int index;
+    private int captureEnd;
+    private int killerSlot;
+    private int killer0;
+    private int killer1;
+
+    MovePicker(MoveHistory history) {
+        this.history = history;
+    }
+
+    // movimentos legais já gerados em 'moves'; o movimento da tabela (ou 0)
+    // só é entregue se estiver entre eles:
+    void init(ChessBoard board, Color color, int[] moves, int count, int hashMove, int ply) {
+        this.board = board;
+        this.color = color;
+        this.moves = moves;
+        this.count = count;
+        this.hashMove = (hashMove != 0 && contains(0, count, hashMove)) ? hashMove : 0;
+        this.ply = ply;
+        capturesOnly = false;
+        stage = HASH;
+        killerSlot = 0;
+        killer0 = 0;
+        killer1 = 0;
+    }
+
+    // só as capturas e promoções entre os movimentos, sem movimento da
+    // tabela, para a busca de quiescência:
+    void initCaptures(ChessBoard board, Color color, int[] moves, int count) {
+        init(board, color, moves, count, 0, 0);
+        capturesOnly = true;
+        stage = CAPTURES_INIT;
+    }
+
+    // próximo movimento, ou 0 quando não houver mais; cada estágio esgotado
+    // passa ao seguinte na mesma chamada:
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH:
+                    stage = CAPTURES_INIT;
+                    if (hashMove != 0) {
+                        return hashMove;
+                    }
+                    break;
+                case CAPTURES_INIT:
+                    partitionCaptures();
+                    index = 0;
+                    stage = CAPTURES;
+                    break;
+                case CAPTURES: {
+                    int move = selectBest(captureEnd);
+                    if (move != 0) {
+                        return move;
+                    }
+                    stage = capturesOnly ? DONE : KILLERS;
+                    break;
+                }
+                case KILLERS:
+                    // killers válidos aqui: silenciosos, legais nesta posição e
+                    // diferentes do movimento da tabela:
+                    while (killerSlot < 2) {
+                        int killer = history.killer(ply, killerSlot++);
+                        if (killer != 0 && killer != hashMove && contains(captureEnd, count, killer)) {
+                            if (killerSlot == 1) killer0 = killer; else killer1 = killer;
+                            return killer;
+                        }
+                    }
+                    stage = QUIETS_INIT;
+                    break;
+                case QUIETS_INIT:
+                    for (int i=captureEnd; i < count; i++) {
+                        scores[i] = history.history(color, moves[i]);
+                    }
+                    index = captureEnd;
+                    stage = QUIETS;
+                    break;
+                case QUIETS: {
+                    int move = selectBest(count);
+                    if (move != 0) {
+                        return move;
+                    }
+                    stage = DONE;
+                    break;
+                }
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    // capturas e promoções movidas para o início do vetor, pontuadas por
+    // MVV-LVA (promoções como captura da peça escolhida):
+    private void partitionCaptures() {
+        long occupied = board.getOccupied();
+        captureEnd = 0;
+        for (int i=0; i < count; i++) {
+            int move = moves[i];
+            boolean capture = (occupied & Bitboards.bit(Move.to(move))) != 0;
+            if (!capture && !Move.isEnPassant(move) && !Move.isPromotion(move)) {
+                continue;
+            }
+            // vítima: o peão no En-Passant; ordinais de PieceType crescem
+            // com o valor, do Peão ao Rei:
+            int victim = capture ? board.piece(Move.to(move)).getType().ordinal() : 0;
+            int score = victim * 8 - board.piece(Move.from(move)).getType().ordinal();
+            if (Move.isPromotion(move)) {
+                score += Move.promotion(move).ordinal() * 8;
+            }
+            moves[i] = moves[captureEnd];
+            moves[captureEnd] = move;
+            scores[captureEnd] = score;
+            captureEnd++;
+        }
+    }
+
+    // maior pontuação entre 'index' e 'end', trazida para 'index'; pula os
+    // movimentos já entregues nos estágios anteriores:
+    private int selectBest(int end) {
+        while (index < end) {
+            int best = index;
+            for (int i=index + 1; i < end; i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            int move = moves[best];
+            moves[best] = moves[index];
+            scores[best] = scores[index];
+            moves[index] = move;
+            index++;
+            if (move != hashMove && move != killer0 && move != killer1) {
+                return move;
+            }
+        }
+        return 0;
+    }
+
+    private boolean contains(int from, int end, int move) {
+        for (int i=from; i < end; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
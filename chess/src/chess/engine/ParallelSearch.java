@@ -0,0 +1,115 @@
+package chess.engine;
+
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+import chess.tablebase.Tablebase;
+
+// busca paralela Lazy SMP: cada thread busca a mesma raiz numa cópia própria
+// da partida, cooperando apenas pela tabela de transposição compartilhada;
+// o resultado é o da busca principal, com os nós somados de todas as threads:
+public class ParallelSearch {
+
+    private ChessMatch chessMatch;
+    private TranspositionTable table;
+    private int threads;
+    private Tablebase tablebase;
+    private Consumer<SearchResult> listener;
+
+    private volatile Search[] workers;
+    // pedido de parada, guardado para alcançar também as buscas ainda não
+    // criadas quando ele chega; vale para toda a vida da instância (o UCI
+    // cria uma por "go"):
+    private volatile boolean stopped;
+
+    public ParallelSearch(ChessMatch chessMatch, TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least 1 search thread.");
+        }
+        this.chessMatch = chessMatch;
+        this.table = table;
+        this.threads = threads;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    // observador notificado ao final de cada iteração da busca principal:
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    public void stop() {
+        stopped = true;
+        Search[] w = workers;
+        if (w != null) {
+            for (Search s : w) {
+                s.stop();
+            }
+        }
+    }
+
+    public SearchResult search(int maxDepth, long timeMillis) {
+        table.newSearch();
+        Search[] w = new Search[threads];
+        for (int i=0; i < threads; i++) {
+            w[i] = new Search(new ChessMatch(chessMatch), table);
+            w[i].setHelperIndex(i);
+            w[i].setTablebase(tablebase);
+        }
+        workers = w;
+        // stop() chamado antes de 'workers' ser publicado não alcançou estas
+        // buscas; repassado antes de começarem (a principal ainda conclui a
+        // primeira iteração):
+        if (stopped) {
+            for (Search s : w) {
+                s.stop();
+            }
+        }
+
+        // threads auxiliares, interrompidas quando a principal termina:
+        Thread[] helpers = new Thread[threads - 1];
+        for (int i=1; i < threads; i++) {
+            Search helper = w[i];
+            helpers[i - 1] = new Thread(() -> helper.iterate(maxDepth, timeMillis), "search-helper-" + i);
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+
+        if (listener != null) {
+            w[0].setListener(r -> listener.accept(withTotalNodes(r, w)));
+        }
+        SearchResult result = w[0].iterate(maxDepth, timeMillis);
+
+        for (int i=1; i < threads; i++) {
+            w[i].stop();
+        }
+        for (Thread t : helpers) {
+            try {
+                t.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers = null;
+        return withTotalNodes(result, w);
+    }
+
+    private static SearchResult withTotalNodes(SearchResult r, Search[] workers) {
+        long nodes = 0;
+        for (Search s : workers) {
+            nodes += s.getNodes();
+        }
+        return new SearchResult(r.getBestMove(), r.getScore(), r.getDepth(), nodes, r.getNanos(), r.getHashFull(), r.getCutoffs(), r.getFirstMoveCutoffs());
+    }
+}
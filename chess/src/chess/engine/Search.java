@@ -0,0 +1,379 @@
+package chess.engine;
+
+import java.util.function.Consumer;
+
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.Move;
+import chess.PieceType;
+import chess.tablebase.Tablebase;
+
+// busca negamax com poda alfa-beta e aprofundamento iterativo sobre uma
+// ChessMatch, limitada por profundidade e/ou tempo:
+public class Search {
+
+    // limites cabem nos 16 bits de avaliação da tabela de transposição:
+    public static final int INFINITY = 32_000;
+    public static final int MATE = 30_000;
+    public static final int MAX_PLY = 128;
+
+    // fora do intervalo das avaliações, para indicar a falta de resultado:
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+
+    // a verificação de tempo é feita a cada 2048 nós:
+    private static final int TIME_CHECK_MASK = 2047;
+
+    private ChessMatch chessMatch;
+    private TranspositionTable table;
+    // tabelas de finais consultadas durante a busca, ou null:
+    private Tablebase tablebase;
+    // um buffer de movimentos e um seletor por ply, alocados uma única vez:
+    private int[][] moves = new int[MAX_PLY][Move.MAX_MOVES];
+    private MoveHistory history = new MoveHistory();
+    private MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private StaticExchange exchange = new StaticExchange();
+
+    private long nodes;
+    // cortes beta e quantos deles vieram do primeiro movimento, medida da
+    // qualidade da ordenação:
+    private long cutoffs;
+    private long firstMoveCutoffs;
+    // capturas podadas na quiescência por perderem material:
+    private long prunedCaptures;
+    private long deadline;
+    private volatile boolean stopped;
+    // alguma iteração já foi concluída: só então a parada interrompe a
+    // busca, já que antes os 0 devolvidos pelos nós interrompidos
+    // escolheriam o movimento da raiz:
+    private boolean completed;
+    private Consumer<SearchResult> listener;
+    // índice da thread auxiliar no Lazy SMP (0 para a busca principal):
+    private int helperIndex;
+
+    public Search(ChessMatch chessMatch) {
+        this(chessMatch, new TranspositionTable(16));
+    }
+
+    // tabela de transposição informada, que pode ser compartilhada entre
+    // buscas e threads:
+    public Search(ChessMatch chessMatch, TranspositionTable table) {
+        this.chessMatch = chessMatch;
+        this.table = table;
+        for (int i=0; i < MAX_PLY; i++) {
+            pickers[i] = new MovePicker(history);
+        }
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    // observador notificado ao final de cada iteração:
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    // interrompe a busca em andamento, que retorna o resultado da última
+    // iteração completa:
+    public void stop() {
+        stopped = true;
+    }
+
+    // threads auxiliares variam a ordem dos movimentos da raiz e as
+    // profundidades iniciais, para que explorem partes diferentes da árvore:
+    void setHelperIndex(int helperIndex) {
+        this.helperIndex = helperIndex;
+    }
+
+    // busca até 'maxDepth' ou até 'timeMillis' (sem limite de tempo se <= 0);
+    // a primeira iteração sempre é concluída para haver um movimento. Uma
+    // nova busca descarta o pedido de parada da anterior:
+    public SearchResult search(int maxDepth, long timeMillis) {
+        table.newSearch();
+        stopped = false;
+        return iterate(maxDepth, timeMillis);
+    }
+
+    // aprofundamento iterativo sem iniciar nova geração na tabela, que pode
+    // estar compartilhada com outras threads; não limpa o pedido de parada,
+    // que pode ter chegado antes de a thread começar:
+    SearchResult iterate(int maxDepth, long timeMillis) {
+        long start = System.nanoTime();
+        deadline = (timeMillis > 0) ? start + timeMillis * 1_000_000L : Long.MAX_VALUE;
+        nodes = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        prunedCaptures = 0;
+        completed = false;
+        history.newSearch();
+
+        int[] rootMoves = moves[0];
+        int count = chessMatch.generateLegalMoves(rootMoves);
+        SearchResult result = new SearchResult(0, chessMatch.getCheck() ? -MATE : 0, 0, 0, 0, 0, 0, 0);
+        if (count == 0) {
+            return result;
+        }
+        if (helperIndex > 0) {
+            rotate(rootMoves, count, helperIndex % count);
+        }
+
+        for (int depth=1 + (helperIndex & 1); depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+            int alpha = -INFINITY;
+            int bestIndex = -1;
+            for (int i=0; i < count; i++) {
+                chessMatch.doMove(rootMoves[i]);
+                int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+                chessMatch.undoMove();
+                if (aborted()) {
+                    break;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    bestIndex = i;
+                }
+            }
+            if (aborted()) {
+                break;
+            }
+
+            // o melhor movimento passa a ser o primeiro da próxima iteração:
+            int best = rootMoves[bestIndex];
+            System.arraycopy(rootMoves, 0, rootMoves, 1, bestIndex);
+            rootMoves[0] = best;
+
+            table.store(chessMatch.getZobristKey(), best, alpha, depth, TranspositionTable.EXACT, 0);
+
+            result = new SearchResult(best, alpha, depth, nodes, System.nanoTime() - start, table.getHashFull(), cutoffs, firstMoveCutoffs);
+            completed = true;
+            if (listener != null) {
+                listener.accept(result);
+            }
+            // mate encontrado: aprofundar não muda o resultado:
+            if (result.isMate() || stopped) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        // no horizonte, a busca continua só pelas capturas:
+        if (depth == 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        if ((++nodes & TIME_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (aborted()) {
+            return 0;
+        }
+        // empates: posição repetida desde o último lance irreversível, regra
+        // dos cinquenta lances e material insuficiente:
+        if (chessMatch.isRepetition() || chessMatch.isFiftyMoveRule() || chessMatch.isInsufficientMaterial()) {
+            return 0;
+        }
+        int tablebaseScore = probeTablebase(ply);
+        if (tablebaseScore != NO_SCORE) {
+            return tablebaseScore;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(chessMatch);
+        }
+
+        // consulta à tabela de transposição: corte se a entrada for ao menos
+        // tão profunda e o limite gravado resolver a janela atual:
+        long key = chessMatch.getZobristKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] buffer = moves[ply];
+        int count = chessMatch.generateLegalMoves(buffer);
+        // sem movimentos legais: cheque-mate (preferindo o mais rápido) ou
+        // afogamento:
+        if (count == 0) {
+            return chessMatch.getCheck() ? -MATE + ply : 0;
+        }
+        // movimentos em estágios: o da tabela, capturas, killers e
+        // silenciosos pelo histórico:
+        MovePicker picker = pickers[ply];
+        picker.init(chessMatch.getBoard(), chessMatch.getCurrentPlayer(), buffer, count, hashMove, ply);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        int searched = 0;
+        int move;
+        while ((move = picker.next()) != 0) {
+            // captura e promoção testadas antes de mover a peça:
+            boolean quiet = !Move.isPromotion(move) && !Move.isEnPassant(move) && chessMatch.getBoard().piece(Move.to(move)) == null;
+            chessMatch.doMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            chessMatch.undoMove();
+            searched++;
+            if (aborted()) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        cutoffs++;
+                        if (searched == 1) {
+                            firstMoveCutoffs++;
+                        }
+                        if (quiet) {
+                            history.update(chessMatch.getCurrentPlayer(), move, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = (best >= beta) ? TranspositionTable.LOWER : (best > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    // busca de quiescência: a partir da avaliação parada (o lado a jogar
+    // pode não capturar), só capturas e promoções à Rainha que não percam
+    // material pela SEE, até a posição ficar quieta. Como cada captura
+    // reduz o material, a árvore é limitada mesmo sem profundidade; em
+    // cheque, todas as evasões são buscadas, para reconhecer o mate:
+    private int quiescence(int ply, int alpha, int beta) {
+        if ((++nodes & TIME_CHECK_MASK) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+        }
+        if (aborted()) {
+            return 0;
+        }
+        int tablebaseScore = probeTablebase(ply);
+        if (tablebaseScore != NO_SCORE) {
+            return tablebaseScore;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(chessMatch);
+        }
+
+        ChessBoard board = chessMatch.getBoard();
+        int[] buffer = moves[ply];
+        MovePicker picker = pickers[ply];
+        boolean inCheck = chessMatch.getCheck();
+        int best;
+        if (inCheck) {
+            int count = chessMatch.generateLegalMoves(buffer);
+            if (count == 0) {
+                return -MATE + ply;
+            }
+            picker.init(board, chessMatch.getCurrentPlayer(), buffer, count, 0, ply);
+            best = -INFINITY;
+        }
+        else {
+            int standPat = Evaluator.evaluate(chessMatch);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+            best = standPat;
+            int count = chessMatch.generateLegalCaptures(buffer);
+            picker.initCaptures(board, chessMatch.getCurrentPlayer(), buffer, count);
+        }
+
+        int move;
+        while ((move = picker.next()) != 0) {
+            if (!inCheck) {
+                if (Move.isPromotion(move) && Move.promotion(move) != PieceType.QUEEN) {
+                    continue;
+                }
+                // capturas perdedoras na troca não são buscadas:
+                if (exchange.evaluate(board, move) < 0) {
+                    prunedCaptures++;
+                    continue;
+                }
+            }
+            chessMatch.doMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            chessMatch.undoMove();
+            if (aborted()) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // parada pedida (ou tempo esgotado) depois da primeira iteração
+    // completa; o resultado da iteração interrompida é descartado:
+    private boolean aborted() {
+        return stopped && completed;
+    }
+
+    // finais com poucas peças: resultado exato das tabelas, com a
+    // distância ao mate convertida para a escala da busca, ou NO_SCORE:
+    private int probeTablebase(int ply) {
+        if (tablebase == null || Long.bitCount(chessMatch.getBoard().getOccupied()) > tablebase.getMaxPieces()) {
+            return NO_SCORE;
+        }
+        int code = tablebase.probe(chessMatch);
+        if (code == Tablebase.NOT_FOUND) {
+            return NO_SCORE;
+        }
+        if (code == Tablebase.DRAW) {
+            return 0;
+        }
+        int mate = MATE - ply - Tablebase.distance(code);
+        return Tablebase.isWin(code) ? mate : -mate;
+    }
+
+    private static void rotate(int[] buffer, int count, int distance) {
+        int[] copy = new int[count];
+        for (int i=0; i < count; i++) {
+            copy[i] = buffer[(i + distance) % count];
+        }
+        System.arraycopy(copy, 0, buffer, 0, count);
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    public long getPrunedCaptures() {
+        return prunedCaptures;
+    }
+}
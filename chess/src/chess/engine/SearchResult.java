@@ -0,0 +1,90 @@
+package chess.engine;
+
+import chess.Move;
+
+// resultado de uma iteração completa da busca: melhor movimento, avaliação,
+// profundidade alcançada, nós visitados, tempo até a profundidade e cortes
+// beta (no total e no primeiro movimento de cada nó):
+public class SearchResult {
+
+    private int bestMove;
+    private int score;
+    private int depth;
+    private long nodes;
+    private long nanos;
+    private int hashFull;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long nanos, int hashFull, long cutoffs, long firstMoveCutoffs) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.hashFull = hashFull;
+        this.cutoffs = cutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // tempo desde o início da busca até completar esta profundidade:
+    public long getNanos() {
+        return nanos;
+    }
+
+    // ocupação da tabela de transposição, em milésimos:
+    public int getHashFull() {
+        return hashFull;
+    }
+
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    // porcentagem dos cortes beta feitos pelo primeiro movimento buscado,
+    // medida da eficácia da ordenação dos movimentos:
+    public double getFirstMoveCutoffRate() {
+        return (cutoffs > 0) ? 100.0 * firstMoveCutoffs / cutoffs : 0;
+    }
+
+    // nós por segundo:
+    public long getNps() {
+        return (nanos > 0) ? nodes * 1_000_000_000L / nanos : 0;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth +
+            ", score " + score +
+            ", nodes " + nodes +
+            ", time " + (nanos / 1_000_000) + " ms" +
+            ", nps " + getNps() +
+            ", hashfull " + hashFull +
+            ", first-move cutoffs " + String.format("%.1f", getFirstMoveCutoffRate()) + "%" +
+            ", best " + ((bestMove != 0) ? Move.toString(bestMove) : "none");
+    }
+}
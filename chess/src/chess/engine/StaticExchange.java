@@ -0,0 +1,93 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.Color;
+import chess.Move;
+import chess.PieceType;
+
+// avaliação estática de trocas (SEE): saldo de material da sequência de
+// capturas na casa de destino de um movimento, com cada lado recapturando
+// sempre com o atacante menos valioso e podendo parar quando continuar
+// perderia material. Só lê os bitboards: a ocupação é simulada num long, o
+// que também revela os atacantes deslizantes escondidos atrás dos que já
+// capturaram (raios-X); cravadas não são consideradas. Cada instância tem o
+// seu vetor de saldos, para não alocar a cada chamada (uma por thread):
+public final class StaticExchange {
+
+    // valores das peças na troca, indexados por PieceType.ordinal(): o Rei
+    // vale mais que todo o resto, de modo que capturar com ele uma peça
+    // defendida nunca compensa:
+    private static final int[] VALUES = {100, 320, 330, 500, 900, 20_000};
+
+    // maior sequência possível de capturas numa casa (32 peças):
+    private static final int MAX_EXCHANGES = 32;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // saldo acumulado após cada captura da sequência:
+    private int[] gain = new int[MAX_EXCHANGES];
+
+    // saldo, em centipeões, do ponto de vista de quem faz o movimento; num
+    // movimento silencioso, 0 ou a perda da peça, se ela puder ser capturada
+    // com ganho:
+    public int evaluate(ChessBoard board, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        Color side = board.piece(from).getColor();
+
+        long occupied = board.getOccupied() ^ Bitboards.bit(from);
+        if (Move.isEnPassant(move)) {
+            // o peão capturado está ao lado, não na casa de destino:
+            gain[0] = VALUES[PieceType.PAWN.ordinal()];
+            occupied ^= Bitboards.bit(Bitboards.square(Bitboards.row(from), Bitboards.column(to)));
+        }
+        else {
+            gain[0] = (board.piece(to) != null) ? VALUES[board.piece(to).getType().ordinal()] : 0;
+        }
+        // valor da peça que fica na casa, sujeita à próxima captura:
+        int onSquare = VALUES[board.piece(from).getType().ordinal()];
+        if (Move.isPromotion(move)) {
+            int promoted = VALUES[Move.promotion(move).ordinal()];
+            gain[0] += promoted - VALUES[PieceType.PAWN.ordinal()];
+            onSquare = promoted;
+        }
+
+        int d = 0;
+        Color toMove = opponent(side);
+        while (d + 1 < MAX_EXCHANGES) {
+            // atacantes recalculados com a ocupação atual, já sem as peças
+            // que capturaram:
+            long attackers = board.attackersTo(to, toMove, occupied) & occupied;
+            if (attackers == 0) {
+                break;
+            }
+            // atacante menos valioso, pelos ordinais crescentes de PieceType:
+            int type = 0;
+            long candidates = 0L;
+            for (; type < TYPES.length; type++) {
+                candidates = attackers & board.pieces(toMove, TYPES[type]);
+                if (candidates != 0) {
+                    break;
+                }
+            }
+            // saldo para o lado que captura, se a troca parasse aqui:
+            d++;
+            gain[d] = onSquare - gain[d - 1];
+            occupied ^= Long.lowestOneBit(candidates);
+            onSquare = VALUES[type];
+            toMove = opponent(toMove);
+        }
+
+        // cada lado escolhe entre recapturar ou parar, do fim para o início:
+        while (d > 0) {
+            gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+            d--;
+        }
+        return gain[0];
+    }
+
+    private static Color opponent(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,193 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// tabela de transposição de tamanho fixo (potência de dois) num long[], com
+// duas posições por entrada: 'chave ^ dados' e 'dados'. Uma escrita parcial
+// feita por outra thread não passa na conferência do XOR, o que permite
+// compartilhar a tabela entre threads de busca sem travas.
+//
+// dados: bits 0-18 movimento, 19-34 avaliação (+32768), 35-42 profundidade,
+// 43-44 tipo de limite e 45-52 geração da busca:
+public class TranspositionTable {
+
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    private static final int SCORE_SHIFT = 19;
+    private static final int DEPTH_SHIFT = 35;
+    private static final int BOUND_SHIFT = 43;
+    private static final int GENERATION_SHIFT = 45;
+
+    private long[] table;
+    private int mask;
+    private int generation;
+
+    private LongAdder probes = new LongAdder();
+    private LongAdder hits = new LongAdder();
+    private LongAdder collisions = new LongAdder();
+    private LongAdder stores = new LongAdder();
+
+    // tamanho em megabytes, arredondado para baixo até uma potência de dois
+    // de entradas de 16 bytes:
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB.");
+        }
+        long entries = Long.highestOneBit(megabytes * (1L << 20) / 16);
+        if (entries > (1 << 30)) {
+            entries = 1 << 30;
+        }
+        table = new long[(int)entries * 2];
+        mask = (int)entries - 1;
+    }
+
+    // início de uma nova busca: entradas de gerações anteriores passam a ser
+    // substituídas primeiro:
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        generation = 0;
+        probes.reset();
+        hits.reset();
+        collisions.reset();
+        stores.reset();
+    }
+
+    // consulta da posição, retornando os dados da entrada ou 0 se ausente:
+    public long probe(long key) {
+        probes.increment();
+        int i = ((int)key & mask) << 1;
+        long data = table[i + 1];
+        if ((table[i] ^ data) == key && data != 0) {
+            hits.increment();
+            return data;
+        }
+        if (data != 0) {
+            collisions.increment();
+        }
+        return 0L;
+    }
+
+    // gravação com preferência por profundidade: uma entrada de outra posição
+    // só é substituída se for de busca anterior ou menos profunda; a
+    // avaliação de mate é guardada relativa ao nó ('ply'):
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int i = ((int)key & mask) << 1;
+        long old = table[i + 1];
+        if (old != 0) {
+            boolean samePosition = (table[i] ^ old) == key;
+            if (samePosition) {
+                // sem movimento novo, preservar o anterior:
+                if (move == 0) {
+                    move = move(old);
+                }
+            }
+            else if (generation(old) == generation && depth < depth(old)) {
+                return;
+            }
+        }
+        if (score >= Search.MATE - Search.MAX_PLY) {
+            score += ply;
+        }
+        else if (score <= -Search.MATE + Search.MAX_PLY) {
+            score -= ply;
+        }
+        long data = (move & 0x7FFFFL)
+            | ((long)(score + 32768) << SCORE_SHIFT)
+            | ((long)depth << DEPTH_SHIFT)
+            | ((long)bound << BOUND_SHIFT)
+            | ((long)generation << GENERATION_SHIFT);
+        table[i] = key ^ data;
+        table[i + 1] = data;
+        stores.increment();
+    }
+
+    public static int move(long data) {
+        return (int)(data & 0x7FFFF);
+    }
+
+    // avaliação com o ajuste de mate devolvido para o nó atual:
+    public static int score(long data, int ply) {
+        int score = (int)((data >>> SCORE_SHIFT) & 0xFFFF) - 32768;
+        if (score >= Search.MATE - Search.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE + Search.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    public static int depth(long data) {
+        return (int)((data >>> DEPTH_SHIFT) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int)((data >>> BOUND_SHIFT) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int)((data >>> GENERATION_SHIFT) & 0xFF);
+    }
+
+/*===========================================================================*/
+// ESTATÍSTICAS
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    // consultas ou gravações que encontraram a entrada ocupada por outra
+    // posição:
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    public double getHitRate() {
+        long p = getProbes();
+        return (p > 0) ? (double)getHits() / p : 0.0;
+    }
+
+    public int getEntries() {
+        return mask + 1;
+    }
+
+    // ocupação em milésimos, amostrando as primeiras 1000 entradas da busca
+    // atual (como o 'hashfull' do protocolo UCI):
+    public int getHashFull() {
+        int sample = Math.min(1000, mask + 1);
+        int used = 0;
+        for (int e=0; e < sample; e++) {
+            long data = table[(e << 1) + 1];
+            if (data != 0 && generation(data) == generation) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    @Override
+    public String toString() {
+        return "entries " + getEntries() +
+            ", probes " + getProbes() +
+            ", hits " + getHits() +
+            String.format(" (%.1f%%)", getHitRate() * 100) +
+            ", collisions " + getCollisions() +
+            ", stores " + getStores() +
+            ", hashfull " + getHashFull() + "/1000";
+    }
+}
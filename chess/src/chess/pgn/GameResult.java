@@ -0,0 +1,72 @@
+package chess.pgn;
+
+// resumo de uma partida validada, sem os movimentos nem a partida, para que
+// os resultados de um arquivo inteiro possam ser guardados e agregados:
+public class GameResult {
+
+    private long number;
+    private String result;
+    private Termination termination;
+    private int plies;
+    private String error;
+
+    GameResult(PgnGame game) {
+        result = game.getResult();
+        plies = game.getMoveCount();
+        error = game.getError();
+        if (error != null) {
+            termination = Termination.ILLEGAL_MOVE;
+        }
+        else if (game.getChessMatch().getCheckMate()) {
+            termination = Termination.CHECKMATE;
+        }
+        else if (game.getChessMatch().getStaleMate()) {
+            termination = Termination.STALEMATE;
+        }
+        // empate automático, ou reclamável na posição final de uma partida
+        // empatada:
+        else if (game.getChessMatch().getDraw() || (game.getChessMatch().canClaimDraw() && "1/2-1/2".equals(result))) {
+            termination = Termination.DRAW;
+        }
+        else {
+            termination = Termination.UNTERMINATED;
+        }
+    }
+
+    // número da partida no arquivo, a partir de 1:
+    public long getNumber() {
+        return number;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public Termination getTermination() {
+        return termination;
+    }
+
+    void setNumber(long number) {
+        this.number = number;
+    }
+
+    // meios-lances válidos jogados:
+    public int getPlies() {
+        return plies;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    // meio-lance (a partir de 1) do lance ilegal, ou -1:
+    public int getErrorPly() {
+        return (error != null) ? plies + 1 : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "game " + number + ": " + result + " " + termination
+            + ((error != null) ? " at ply " + getErrorPly() + " (" + error + ")" : "") + ", " + plies + " plies";
+    }
+}
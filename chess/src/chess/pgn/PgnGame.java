@@ -0,0 +1,78 @@
+package chess.pgn;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.ChessMatch;
+
+// partida lida de um arquivo PGN: etiquetas, movimentos já validados
+// (codificados por Move), resultado e a partida na posição final. Em caso de
+// lance ilegal ou ambíguo, 'error' descreve o problema e os movimentos vão
+// até o último lance válido:
+public class PgnGame {
+
+    private Map<String, String> tags = new LinkedHashMap<>();
+    private int[] moves = new int[128];
+    private int moveCount;
+    private String result = "*";
+    private String error;
+    private ChessMatch chessMatch;
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    // meio-lance (a partir de 1) do primeiro lance inválido, ou -1:
+    public int getErrorPly() {
+        return (error != null) ? moveCount + 1 : -1;
+    }
+
+    // partida na posição após o último movimento válido:
+    public ChessMatch getChessMatch() {
+        return chessMatch;
+    }
+
+    void addMove(int move) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+    }
+
+    void setChessMatch(ChessMatch chessMatch) {
+        this.chessMatch = chessMatch;
+    }
+
+    void setResult(String result) {
+        this.result = result;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,327 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Move;
+import chess.PieceType;
+
+// leitura de arquivos PGN em fluxo, uma partida por chamada de next(): o
+// arquivo é mapeado em memória em blocos de tamanho fixo, os lances são lidos
+// para um buffer de bytes reutilizado (sem criar strings por lance) e cada um
+// é resolvido e jogado com performChessMove, de modo que a memória usada não
+// depende do tamanho do arquivo:
+public class PgnReader implements Closeable {
+
+    // tamanho de cada bloco mapeado do arquivo:
+    private static final long CHUNK = 64L << 20;
+
+    // letras aceitas por replacePromotedPiece, indexadas por PieceType (o
+    // Cavalo é 'K'):
+    private static final String[] PROMOTIONS = {null, "K", "B", "R", "Q", null};
+
+    private FileChannel channel;
+    // o canal é fechado em close() apenas se foi aberto pelo leitor:
+    private boolean ownsChannel;
+    // fim do trecho do arquivo a ser lido:
+    private long size;
+    // início do próximo bloco a ser mapeado:
+    private long mapped;
+    private MappedByteBuffer buffer;
+    // caractere devolvido por unread(), ou -1:
+    private int pushback = -1;
+
+    private byte[] token = new byte[256];
+    private int tokenLength;
+    private int[] moveBuffer = new int[Move.MAX_MOVES];
+
+    // partida reaproveitada a cada jogo com loadFen, ou null para criar uma
+    // partida nova por jogo:
+    private ChessMatch chessMatch;
+
+    private long games;
+    private long plies;
+
+    public PgnReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ownsChannel = true;
+        size = channel.size();
+    }
+
+    // leitura apenas do trecho [start, end) de um canal compartilhado, que
+    // deve começar no início de uma partida; a partida informada é
+    // reaproveitada em todos os jogos, e por isso a de cada PgnGame só vale
+    // até a próxima chamada de next():
+    public PgnReader(FileChannel channel, long start, long end, ChessMatch chessMatch) {
+        this.channel = channel;
+        this.chessMatch = chessMatch;
+        mapped = start;
+        size = end;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getPlies() {
+        return plies;
+    }
+
+    // posição no arquivo do próximo byte a ler, para acompanhar o progresso:
+    public long getPosition() {
+        return (buffer == null) ? mapped : mapped - buffer.remaining();
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    // próxima partida do arquivo, ou null no fim; uma partida com lance
+    // inválido é retornada com o erro e o restante dos seus lances ignorado:
+    public PgnGame next() throws IOException {
+        PgnGame game = null;
+        boolean inMoves = false;
+        int c;
+        while ((c = read()) >= 0) {
+            if (c <= ' ') {
+                continue;
+            }
+            if (game == null) {
+                game = new PgnGame();
+            }
+            switch (c) {
+                case '[':
+                    // etiqueta depois dos lances: a partida anterior terminou
+                    // sem resultado:
+                    if (inMoves) {
+                        unread(c);
+                        return finish(game);
+                    }
+                    readTag(game);
+                    break;
+                case '{':
+                    skipUntil('}');
+                    break;
+                case ';':
+                case '%':
+                    skipUntil('\n');
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case ')':
+                case '}':
+                case ']':
+                    break;
+                case '$':
+                    readToken(c);
+                    break;
+                default:
+                    inMoves = true;
+                    readToken(c);
+                    String result = result();
+                    if (result != null) {
+                        game.setResult(result);
+                        return finish(game);
+                    }
+                    play(game);
+            }
+        }
+        return (game != null) ? finish(game) : null;
+    }
+
+    private PgnGame finish(PgnGame game) {
+        games++;
+        if (game.getChessMatch() == null) {
+            startMatch(game);
+        }
+        return game;
+    }
+
+/*===========================================================================*/
+// MOVES
+
+    // lance do token atual, sem o número do lance que pode vir colado
+    // ("12.e4"), resolvido e jogado na partida:
+    private void play(PgnGame game) {
+        int start = 0;
+        while (start < tokenLength && token[start] >= '0' && token[start] <= '9') {
+            start++;
+        }
+        if (start < tokenLength && token[start] == '.') {
+            while (start < tokenLength && token[start] == '.') {
+                start++;
+            }
+        }
+        else {
+            // sem ponto, os algarismos fazem parte do lance ("0-0"):
+            start = 0;
+        }
+        if (start == tokenLength) {
+            return;
+        }
+
+        if (game.getChessMatch() == null) {
+            startMatch(game);
+        }
+        if (game.getError() != null) {
+            return;
+        }
+        // "e.p." ou "ep" como token separado depois de uma captura en
+        // passant ("exd6 e.p."):
+        int count = game.getMoveCount();
+        if (San.enPassantMark(token, start, tokenLength) == tokenLength - start && count > 0 && Move.isEnPassant(game.getMove(count - 1))) {
+            return;
+        }
+        ChessMatch chessMatch = game.getChessMatch();
+        try {
+            int move = San.resolve(chessMatch, token, start, tokenLength - start, moveBuffer);
+            chessMatch.performChessMove(ChessPosition.fromSquare(Move.from(move)), ChessPosition.fromSquare(Move.to(move)));
+            if (Move.isPromotion(move) && Move.promotion(move) != PieceType.QUEEN) {
+                chessMatch.replacePromotedPiece(PROMOTIONS[Move.promotion(move).ordinal()]);
+            }
+            game.addMove(move);
+            plies++;
+        }
+        catch (ChessException e) {
+            game.setError("Move " + chessMatch.getFullMoveNumber() + ": " + e.getMessage());
+        }
+    }
+
+    // partida a partir da posição inicial ou da etiqueta FEN:
+    private void startMatch(PgnGame game) {
+        String fen = game.getTag("FEN");
+        try {
+            if (chessMatch != null) {
+                chessMatch.loadFen((fen != null) ? fen : Fen.START_POSITION);
+                game.setChessMatch(chessMatch);
+            }
+            else {
+                game.setChessMatch((fen != null) ? new ChessMatch(fen) : new ChessMatch());
+            }
+        }
+        catch (ChessException e) {
+            if (chessMatch != null) {
+                chessMatch.loadFen(Fen.START_POSITION);
+            }
+            game.setChessMatch((chessMatch != null) ? chessMatch : new ChessMatch());
+            game.setError(e.getMessage());
+        }
+    }
+
+    // resultado da partida, se o token atual for um:
+    private String result() {
+        if (tokenLength == 1 && token[0] == '*') return "*";
+        if (tokenLength == 3 && token[0] == '1' && token[1] == '-' && token[2] == '0') return "1-0";
+        if (tokenLength == 3 && token[0] == '0' && token[1] == '-' && token[2] == '1') return "0-1";
+        if (tokenLength == 7 && token[0] == '1' && token[1] == '/' && token[2] == '2' && token[3] == '-') return "1/2-1/2";
+        return null;
+    }
+
+/*===========================================================================*/
+// TOKENS
+
+    private int read() throws IOException {
+        if (pushback >= 0) {
+            int c = pushback;
+            pushback = -1;
+            return c;
+        }
+        if (buffer == null || !buffer.hasRemaining()) {
+            if (mapped >= size) {
+                return -1;
+            }
+            long length = Math.min(CHUNK, size - mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+            mapped += length;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+
+    // token a partir do caractere recebido, até um espaço ou delimitador:
+    private void readToken(int c) throws IOException {
+        tokenLength = 0;
+        while (c > ' ' && c != '{' && c != '}' && c != '(' && c != ')' && c != '[' && c != ']' && c != ';') {
+            append(c);
+            c = read();
+        }
+        if (c >= 0) {
+            unread(c);
+        }
+    }
+
+    private void append(int c) {
+        if (tokenLength == token.length) {
+            token = java.util.Arrays.copyOf(token, tokenLength * 2);
+        }
+        token[tokenLength++] = (byte)c;
+    }
+
+    // etiqueta '[Nome "valor"]', com '\' escapando aspas e barras no valor:
+    private void readTag(PgnGame game) throws IOException {
+        int c = read();
+        while (c >= 0 && c <= ' ') {
+            c = read();
+        }
+        tokenLength = 0;
+        while (c > ' ' && c != '"' && c != ']') {
+            append(c);
+            c = read();
+        }
+        String name = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+        while (c >= 0 && c != '"' && c != ']') {
+            c = read();
+        }
+        tokenLength = 0;
+        if (c == '"') {
+            c = read();
+            while (c >= 0 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                append(c);
+                c = read();
+            }
+            skipUntil(']');
+        }
+        game.getTags().put(name, new String(token, 0, tokenLength, StandardCharsets.UTF_8));
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        while ((c = read()) >= 0 && c != end) {
+        }
+    }
+
+    // variantes entre parênteses, possivelmente aninhadas, não são jogadas:
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) >= 0) {
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == '{') skipUntil('}');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
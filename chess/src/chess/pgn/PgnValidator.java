@@ -0,0 +1,154 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import chess.ChessMatch;
+
+// validação de arquivos PGN em paralelo: o arquivo é dividido em trechos de
+// cerca de CHUNK bytes, sempre no início de uma partida, validados num
+// ForkJoinPool com uma ChessMatch reaproveitada por thread. Os resultados são
+// entregues em ordem ao consumidor, com no máximo 2 trechos por thread em
+// andamento, o que limita a memória independentemente do tamanho do arquivo:
+public class PgnValidator {
+
+    private static final long CHUNK = 4L << 20;
+    // início de partida procurado para dividir o arquivo:
+    private static final byte[] BOUNDARY = {'\n', '[', 'E', 'v', 'e', 'n', 't', ' '};
+
+    private int threads;
+    private ThreadLocal<ChessMatch> matches = ThreadLocal.withInitial(ChessMatch::new);
+    private ByteBuffer scan = ByteBuffer.allocate(64 << 10);
+
+    // contadores de progresso, atualizados pelas threads de validação:
+    private LongAdder games = new LongAdder();
+    private LongAdder invalid = new LongAdder();
+    private LongAdder plies = new LongAdder();
+    private LongAdder bytes = new LongAdder();
+
+    public PgnValidator(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least 1 thread.");
+        }
+        this.threads = threads;
+    }
+
+    public long getGames() {
+        return games.sum();
+    }
+
+    public long getInvalid() {
+        return invalid.sum();
+    }
+
+    public long getPlies() {
+        return plies.sum();
+    }
+
+    // bytes do arquivo já validados:
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    // valida todas as partidas do arquivo, entregando o resultado de cada uma
+    // ao consumidor na ordem do arquivo, a partir da thread que chamou:
+    public void validate(Path path, Consumer<GameResult> consumer) throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ArrayDeque<Future<List<GameResult>>> pending = new ArrayDeque<>();
+            long start = 0;
+            long number = 0;
+            while (start < size || !pending.isEmpty()) {
+                // mantém as threads ocupadas sem ler o arquivo todo adiante:
+                while (start < size && pending.size() < 2 * threads) {
+                    long from = start;
+                    long to = nextGame(channel, Math.min(start + CHUNK, size), size);
+                    pending.add(pool.submit(() -> validateChunk(channel, from, to)));
+                    start = to;
+                }
+                for (GameResult result : take(pending.poll())) {
+                    result.setNumber(++number);
+                    consumer.accept(result);
+                }
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<GameResult> validateChunk(FileChannel channel, long start, long end) throws IOException {
+        List<GameResult> results = new ArrayList<>();
+        PgnReader reader = new PgnReader(channel, start, end, matches.get());
+        long position = start;
+        PgnGame game;
+        while ((game = reader.next()) != null) {
+            results.add(new GameResult(game));
+            games.increment();
+            plies.add(game.getMoveCount());
+            if (!game.isValid()) {
+                invalid.increment();
+            }
+            bytes.add(reader.getPosition() - position);
+            position = reader.getPosition();
+        }
+        bytes.add(end - position);
+        return results;
+    }
+
+    private static List<GameResult> take(Future<List<GameResult>> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException)e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // posição do próximo início de partida ("[Event" no começo de uma linha)
+    // a partir de 'from', ou o fim do arquivo:
+    private long nextGame(FileChannel channel, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            byte[] b = scan.array();
+            for (int i=0; i + BOUNDARY.length <= read; i++) {
+                int k = 0;
+                while (k < BOUNDARY.length && b[i + k] == BOUNDARY[k]) {
+                    k++;
+                }
+                if (k == BOUNDARY.length) {
+                    return position + i + 1;
+                }
+            }
+            // sobreposição para não perder uma marca dividida entre leituras:
+            if (position + read >= size) {
+                break;
+            }
+            position += Math.max(1, read - BOUNDARY.length + 1);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,143 @@
+package chess.pgn;
+
+import chess.Bitboards;
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Move;
+import chess.PieceType;
+
+// resolução de lances em notação algébrica curta (SAN), lidos diretamente dos
+// bytes do arquivo, para o movimento legal correspondente na partida:
+public final class San {
+
+    private San() {
+    }
+
+    // movimento codificado por Move correspondente ao SAN em
+    // bytes[offset, offset + length), procurado entre os movimentos legais do
+    // jogador da vez; 'moves' é um buffer de Move.MAX_MOVES posições:
+    public static int resolve(ChessMatch chessMatch, byte[] bytes, int offset, int length, int[] moves) {
+        int end = trimAnnotations(bytes, offset, offset + length);
+        // marca de en passant colada ao lance ("exd6e.p."), antes ou depois
+        // do cheque:
+        int mark = enPassantMark(bytes, offset, end);
+        if (mark > 0) {
+            end = trimAnnotations(bytes, offset, end - mark);
+        }
+
+        int count = chessMatch.generateLegalMoves(moves);
+
+        // Roque, com letra O ou algarismo zero:
+        if (end - offset >= 3 && (bytes[offset] == 'O' || bytes[offset] == '0')) {
+            boolean queenside = end - offset >= 5;
+            for (int i=0; i < count; i++) {
+                int move = moves[i];
+                if (Move.isCastling(move) && (Move.to(move) < Move.from(move)) == queenside) {
+                    return move;
+                }
+            }
+            throw illegal(bytes, offset, length);
+        }
+
+        int i = offset;
+        PieceType type = PieceType.PAWN;
+        PieceType promotion = null;
+        if (i < end && pieceType(bytes[i]) != null) {
+            type = pieceType(bytes[i++]);
+        }
+        // promoção, com ou sem '=':
+        if (end - 1 > i && type == PieceType.PAWN && pieceType(bytes[end - 1]) != null) {
+            promotion = pieceType(bytes[end - 1]);
+            end--;
+            if (bytes[end - 1] == '=') {
+                end--;
+            }
+        }
+        // destino: os dois últimos caracteres:
+        if (end - i < 2 || !isFile(bytes[end - 2]) || !isRank(bytes[end - 1])) {
+            throw illegal(bytes, offset, length);
+        }
+        int to = Bitboards.square('8' - bytes[end - 1], bytes[end - 2] - 'a');
+
+        // desambiguação por coluna e/ou linha de origem, ignorando o 'x' da
+        // captura:
+        int fromColumn = -1;
+        int fromRow = -1;
+        for (; i < end - 2; i++) {
+            byte c = bytes[i];
+            if (isFile(c)) fromColumn = c - 'a';
+            else if (isRank(c)) fromRow = '8' - c;
+            else if (c != 'x' && c != ':' && c != '-') throw illegal(bytes, offset, length);
+        }
+
+        int found = 0;
+        for (int k=0; k < count; k++) {
+            int move = moves[k];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.isCastling(move)) continue;
+            if (fromColumn >= 0 && Bitboards.column(from) != fromColumn) continue;
+            if (fromRow >= 0 && Bitboards.row(from) != fromRow) continue;
+            ChessPiece p = chessMatch.getBoard().piece(from);
+            if (p.getType() != type) continue;
+            if (Move.isPromotion(move) && Move.promotion(move) != ((promotion != null) ? promotion : PieceType.QUEEN)) continue;
+            if (found != 0) {
+                throw new ChessException("Ambiguous move " + text(bytes, offset, length) + ".");
+            }
+            found = move;
+        }
+        if (found == 0) {
+            throw illegal(bytes, offset, length);
+        }
+        return found;
+    }
+
+    // tamanho da marca de en passant ("e.p." ou "ep") no fim de
+    // bytes[offset, end), ou 0; também usada para ignorá-la como token
+    // separado ("exd6 e.p."):
+    static int enPassantMark(byte[] bytes, int offset, int end) {
+        if (end - offset >= 4 && bytes[end - 4] == 'e' && bytes[end - 3] == '.' && bytes[end - 2] == 'p' && bytes[end - 1] == '.') {
+            return 4;
+        }
+        if (end - offset >= 2 && bytes[end - 2] == 'e' && bytes[end - 1] == 'p') {
+            return 2;
+        }
+        return 0;
+    }
+
+    // fim de bytes[offset, end) sem os sufixos de cheque, mate e anotações:
+    private static int trimAnnotations(byte[] bytes, int offset, int end) {
+        while (end > offset && (bytes[end - 1] == '+' || bytes[end - 1] == '#' || bytes[end - 1] == '!' || bytes[end - 1] == '?')) {
+            end--;
+        }
+        return end;
+    }
+
+    private static PieceType pieceType(byte c) {
+        switch (c) {
+            case 'N': return PieceType.KNIGHT;
+            case 'B': return PieceType.BISHOP;
+            case 'R': return PieceType.ROOK;
+            case 'Q': return PieceType.QUEEN;
+            case 'K': return PieceType.KING;
+            default: return null;
+        }
+    }
+
+    private static boolean isFile(byte c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(byte c) {
+        return c >= '1' && c <= '8';
+    }
+
+    // texto do lance, montado apenas para mensagens de erro:
+    private static String text(byte[] bytes, int offset, int length) {
+        return new String(bytes, offset, length, java.nio.charset.StandardCharsets.ISO_8859_1);
+    }
+
+    private static ChessException illegal(byte[] bytes, int offset, int length) {
+        return new ChessException("Illegal move " + text(bytes, offset, length) + ".");
+    }
+}
@@ -0,0 +1,12 @@
+package chess.pgn;
+
+// como termina uma partida validada: mate, afogamento ou empate pelas regras
+// no tabuleiro, lance ilegal, ou sem fim no tabuleiro (abandono, acordo,
+// tempo ou partida interrompida):
+public enum Termination {
+    CHECKMATE,
+    STALEMATE,
+    DRAW,
+    ILLEGAL_MOVE,
+    UNTERMINATED;
+}
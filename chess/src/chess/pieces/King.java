@@ -1,20 +1,16 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
-import chess.ChessMatch;
+import chess.Bitboards;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class King extends ChessPiece {
 
-    // associação com a partida (ChessMatch) para validar as condições para
-    // o Roque:
-    private ChessMatch chessMatch;
-
-    public King(Board board, Color color, ChessMatch chessMatch) {
+    public King(Board board, Color color) {
         super(board, color);
-        this.chessMatch = chessMatch;
     }
 
     @Override
@@ -22,103 +18,59 @@ public class King extends ChessPiece {
         return "🨀";
     }
 
-    private boolean canMove(Position position) {
-        ChessPiece p = (ChessPiece)getBoard().piece(position);
-        return p == null || p.getColor() != getColor();
+    @Override
+    public PieceType getType() {
+        return PieceType.KING;
     }
 
     // teste das condições para o Roque - Torre:
-    private boolean testRookCastling(Position position) {
-        ChessPiece p = (ChessPiece)getBoard().piece(position);
+    private boolean testRookCastling(int square) {
+        ChessPiece p = getChessBoard().piece(square);
         // testando se a peça 'p' existe, se é instanceof Torre, se é da mesma
         // cor do presente Rei e se está na contagem de movimentos '0':
         return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-
-        // movimento vertical acima:
-        p.setValues(position.getRow() - 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // movimento a nordeste:
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // movimento horizontal à direita:
-        p.setValues(position.getRow(), position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // movimento a sudeste:
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
+    public long possibleTargets() {
+        int square = getSquare();
+        long occupied = getChessBoard().getOccupied();
 
-        // movimento vertical abaixo:
-        p.setValues(position.getRow() + 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // movimento a sudoeste:
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // movimento horizontal à esquerda:
-        p.setValues(position.getRow(), position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // movimento a noroeste:
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
+        // movimentos de uma casa em qualquer direção:
+        long targets = Bitboards.kingAttacks(square) & ~getChessBoard().occupancy(getColor());
 
         // teste das condições para o Roque - Rei: contagem de movimentos == '0'
-        // e negativo para cheque:
-        if (getMoveCount() == 0 && !chessMatch.getCheck()) {
-            // Roque pequeno: testar posição da Torre:
-            Position posR1 = new Position(position.getRow(), position.getColumn() + 3);
-            if (testRookCastling(posR1)) {
-                // testar se as casas entre o Rei e a Torre estão livres:
-                Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-                    // se verdadeiro, validar o movimento do Roque pequeno:
-                    mat[position.getRow()][position.getColumn() + 2] = true;
-                }
+        // e negativo para cheque, consultado a partir da casa do Rei:
+        Color opponent = (getColor() == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        if (getMoveCount() == 0 && !getChessBoard().isSquareAttacked(square, opponent)) {
+            int column = Bitboards.column(square);
+            // Roque pequeno: testar posição da Torre, se as casas entre o
+            // Rei e a Torre estão livres e se a casa atravessada pelo Rei não
+            // está atacada:
+            if (column + 3 < 8 && testRookCastling(square + 3) && (occupied & (Bitboards.bit(square + 1) | Bitboards.bit(square + 2))) == 0
+                    && !getChessBoard().isSquareAttacked(square + 1, opponent)) {
+                targets |= Bitboards.bit(square + 2);
             }
-            // Roque grande (castling queenside rook): testar posição da
-            // Torre da Rainha:
-            Position posR2 = new Position(position.getRow(), position.getColumn() - 4);
-            if (testRookCastling(posR2)) {
-                // testar se as casas entre o Rei e a Torre da Rainha estão
-                // livres:
-                Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-                Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-                    // se verdadeiro, validar o movimento do Roque grande:
-                    mat[position.getRow()][position.getColumn() - 2] = true;
-                }
+            // Roque grande: testar posição da Torre da Rainha, se as casas
+            // entre o Rei e a Torre da Rainha estão livres e se a casa
+            // atravessada pelo Rei não está atacada:
+            if (column - 4 >= 0 && testRookCastling(square - 4) && (occupied & (Bitboards.bit(square - 1) | Bitboards.bit(square - 2) | Bitboards.bit(square - 3))) == 0
+                    && !getChessBoard().isSquareAttacked(square - 1, opponent)) {
+                targets |= Bitboards.bit(square - 2);
             }
         }
 
-        return mat;
+        return targets;
+    }
+
+    // marcação dos movimentos de Roque, de duas casas na horizontal:
+    @Override
+    public int generateMoves(int[] moves, int count, long mask) {
+        int from = getSquare();
+        for (long b = possibleTargets() & mask; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b);
+            moves[count++] = Move.encode(from, to, (to == from + 2 || to == from - 2) ? Move.CASTLING : 0);
+        }
+        return count;
     }
 }
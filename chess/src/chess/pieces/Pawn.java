@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Bitboards;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.Move;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
 
@@ -22,113 +24,82 @@ public class Pawn extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-
-        if (getColor() == Color.WHITE) {
-            // movimento padrão do peão branco:
-            p.setValues(position.getRow() - 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
 
-            // primeiro movimento do peão branco:
-            p.setValues(position.getRow() - 2, position.getColumn());
-            // verificar se a primeira de duas casas também está livre:
-            Position p2 = new Position(position.getRow() - 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+    // casa de destino da captura En-Passant disponível para este peão, ou
+    // -1 se não houver:
+    private int enPassantTarget(int square) {
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        if (vulnerable == null || vulnerable.getColor() == getColor()) {
+            return -1;
+        }
+        // testar se o peão vulnerável está ao lado, na mesma linha:
+        int v = vulnerable.getSquare();
+        if (Bitboards.row(v) != Bitboards.row(square) || Math.abs(Bitboards.column(v) - Bitboards.column(square)) != 1) {
+            return -1;
+        }
+        // destino na casa atravessada pelo peão vulnerável:
+        return (getColor() == Color.WHITE) ? v - 8 : v + 8;
+    }
 
-            // captura diagonal à direita:
-            p.setValues(position.getRow() - 1, position.getColumn() + 1);
-            // verificar se existe peça oponente na posição:
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
+    @Override
+    public long possibleTargets() {
+        int square = getSquare();
+        long occupied = getChessBoard().getOccupied();
+        long targets = 0L;
+
+        // movimento padrão, em direção à linha 0 da matriz para o peão branco
+        // e à linha 7 para o preto:
+        int forward = (getColor() == Color.WHITE) ? square - 8 : square + 8;
+        if (forward >= 0 && forward < 64 && (occupied & Bitboards.bit(forward)) == 0) {
+            targets |= Bitboards.bit(forward);
+
+            // primeiro movimento, de duas casas, com ambas livres:
+            int twoSteps = (getColor() == Color.WHITE) ? forward - 8 : forward + 8;
+            if (getMoveCount() == 0 && twoSteps >= 0 && twoSteps < 64 && (occupied & Bitboards.bit(twoSteps)) == 0) {
+                targets |= Bitboards.bit(twoSteps);
             }
+        }
 
-            // captura diagonal à esquerda:
-            p.setValues(position.getRow() - 1, position.getColumn() - 1);
-            // verificar se existe peça oponente na posição:
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+        // capturas nas diagonais, se houver peça oponente:
+        targets |= Bitboards.pawnAttacks(getColor(), square) & getChessBoard().occupancy(getColor() == Color.WHITE ? Color.BLACK : Color.WHITE);
 
-            // En-Passant à direita:
-            // testar se existe peça adversária na linha 5 do tabuleiro e se
-            // é um peão vulnerável:
-            if (position.getRow() == 3) {
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-                    // efetuar movimento:
-                    mat[right.getRow() - 1][right.getColumn()] = true;
-                }
-            }
-            // En-Passant à esquerda:
-            // testar se existe peça adversária na linha 5 do tabuleiro e se
-            // é um peão vulnerável:
-            if (position.getRow() == 3) {
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-                    // efetuar movimento:
-                    mat[left.getRow() - 1][left.getColumn()] = true;
-                }
-            }
+        // En-Passant:
+        int ep = enPassantTarget(square);
+        if (ep >= 0) {
+            targets |= Bitboards.bit(ep);
         }
-        // movimentos do peão preto:
-        else {
-            // movimento padrão do peão preto:
-            p.setValues(position.getRow() + 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
 
-            // primeiro movimento do peão preto:
-            p.setValues(position.getRow() + 2, position.getColumn());
-            // verificar se a primeira de duas casas também está livre:
-            Position p2 = new Position(position.getRow() + 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+        return targets;
+    }
 
-            // captura diagonal à direita:
-            p.setValues(position.getRow() + 1, position.getColumn() + 1);
-            // verificar se existe peça oponente na posição:
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
+    // marcação de avanço duplo, En-Passant e promoção (uma entrada por peça
+    // possível de escolha):
+    @Override
+    public int generateMoves(int[] moves, int count, long mask) {
+        int from = getSquare();
+        int ep = enPassantTarget(from);
+        for (long b = possibleTargets() & mask; b != 0; b &= b - 1) {
+            int to = Long.numberOfTrailingZeros(b);
+            int row = Bitboards.row(to);
+            if (row == 0 || row == 7) {
+                moves[count++] = Move.encodePromotion(from, to, PieceType.QUEEN);
+                moves[count++] = Move.encodePromotion(from, to, PieceType.ROOK);
+                moves[count++] = Move.encodePromotion(from, to, PieceType.BISHOP);
+                moves[count++] = Move.encodePromotion(from, to, PieceType.KNIGHT);
             }
-
-            // captura diagonal à esquerda:
-            p.setValues(position.getRow() + 1, position.getColumn() - 1);
-            // verificar se existe peça oponente na posição:
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
+            else if (to == ep) {
+                moves[count++] = Move.encode(from, to, Move.EN_PASSANT);
             }
-
-            // En-Passant à direita:
-            // testar se existe peça adversária na linha 4 do tabuleiro e se
-            // é um peão vulnerável:
-            if (position.getRow() == 4) {
-                Position right = new Position(position.getRow(), position.getColumn() - 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-                    // efetuar movimento:
-                    mat[right.getRow() + 1][right.getColumn()] = true;
-                }
+            else if (to == from + 16 || to == from - 16) {
+                moves[count++] = Move.encode(from, to, Move.DOUBLE_PUSH);
             }
-            // En-Passant à esquerda:
-            // testar se existe peça adversária na linha 4 do tabuleiro e se
-            // é um peão vulnerável:
-            if (position.getRow() == 4) {
-                Position left = new Position(position.getRow(), position.getColumn() + 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-                    // efetuar movimento:
-                    mat[left.getRow() + 1][left.getColumn()] = true;
-                }
+            else {
+                moves[count++] = Move.encode(from, to, 0);
             }
         }
-
-        return mat;
+        return count;
     }
 }
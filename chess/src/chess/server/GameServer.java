@@ -0,0 +1,228 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Snapshot;
+
+// servidor TCP local de partidas simultâneas, com protocolo de linhas: cada
+// conexão é atendida numa virtual thread, e as partidas ficam no registro,
+// independentes das conexões (uma partida parada custa só a sua ChessMatch).
+// Comandos e respostas ("OK ..." ou "ERROR <mensagem>"):
+//
+//     NEW [FEN]           OK <id>
+//     MOVE <id> <e2e4>    OK <estado> <FEN>     (promoção: "e7e8q")
+//     STATE <id>          OK <estado> <FEN>
+//     CLAIM <id>          OK DRAW <FEN>         (repetição tripla ou 50 lances)
+//     LIST                OK <quantidade> <id>...
+//     CLOSE <id>          OK
+//     STATS               OK games=<n> moves=<n> p50=<µs> p99=<µs>
+//     QUIT
+//
+// com estado PLAYING, CHECK, CHECKMATE, STALEMATE ou DRAW (repetição
+// quíntupla, 75 lances, material insuficiente ou empate reclamado);
+// partidas terminadas não aceitam mais movimentos:
+public class GameServer implements Closeable {
+
+    // buffers pequenos: as conexões trocam linhas curtas:
+    private static final int BUFFER_SIZE = 512;
+
+    // letras aceitas por replacePromotedPiece para "qrbn" (o Cavalo é 'K'):
+    private static final String PROMOTION_LETTERS = "qrbn";
+    private static final String[] PROMOTIONS = {"Q", "R", "B", "K"};
+
+    private ServerSocket serverSocket;
+    private ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private MatchRegistry registry = new MatchRegistry();
+    private LatencyHistogram moveLatency = new LatencyHistogram();
+    private AtomicLong connections = new AtomicLong();
+
+    // servidor na porta informada (0 para uma porta livre), apenas na
+    // interface local:
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public MatchRegistry getRegistry() {
+        return registry;
+    }
+
+    public LatencyHistogram getMoveLatency() {
+        return moveLatency;
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    // aceita conexões numa virtual thread até close():
+    public void start() {
+        executor.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    executor.execute(() -> serve(socket));
+                }
+                catch (IOException e) {
+                    // socket fechado em close():
+                }
+            }
+        });
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), BUFFER_SIZE);
+                Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                if (line.isEmpty()) {
+                    continue;
+                }
+                out.write(handle(line));
+                out.write('\n');
+                out.flush();
+            }
+        }
+        catch (IOException e) {
+            // conexão encerrada pelo cliente:
+        }
+        finally {
+            connections.decrementAndGet();
+        }
+    }
+
+/*===========================================================================*/
+// COMMANDS
+
+    // resposta a uma linha de comando:
+    String handle(String line) {
+        String[] args = line.split("\\s+");
+        try {
+            switch (args[0].toUpperCase()) {
+                case "NEW":
+                    return "OK " + registry.create((args.length > 1) ? new ChessMatch(line.substring(line.indexOf(' ') + 1)) : new ChessMatch());
+                case "MOVE":
+                    return move(args);
+                case "CLAIM": {
+                    ChessMatch chessMatch = match(args);
+                    synchronized (chessMatch) {
+                        chessMatch.claimDraw();
+                        return "OK " + state(chessMatch.getSnapshot());
+                    }
+                }
+                case "STATE":
+                    // leitura sem trava, pelo retrato publicado da partida:
+                    return "OK " + state(match(args).getSnapshot());
+                case "LIST": {
+                    StringBuilder sb = new StringBuilder("OK ").append(registry.size());
+                    for (long id : registry.ids()) {
+                        sb.append(' ').append(id);
+                    }
+                    return sb.toString();
+                }
+                case "CLOSE":
+                    if (args.length < 2 || !registry.remove(parseId(args[1]))) {
+                        return "ERROR Unknown game.";
+                    }
+                    return "OK";
+                case "STATS":
+                    return "OK games=" + registry.size() + " moves=" + moveLatency.getCount() + " p50=" + (moveLatency.percentile(50) / 1000)
+                        + " p99=" + (moveLatency.percentile(99) / 1000);
+                default:
+                    return "ERROR Unknown command: " + args[0] + ".";
+            }
+        }
+        catch (ChessException | IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    // movimento em coordenadas, com a latência do tratamento registrada:
+    private String move(String[] args) {
+        long start = System.nanoTime();
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: MOVE <id> <move>.");
+        }
+        ChessMatch chessMatch = match(args);
+        String move = args[2];
+        if (move.length() < 4 || move.length() > 5) {
+            throw new IllegalArgumentException("Invalid move: " + move + ".");
+        }
+        ChessPosition source = new ChessPosition(move.charAt(0), move.charAt(1) - '0');
+        ChessPosition target = new ChessPosition(move.charAt(2), move.charAt(3) - '0');
+        int promotion = (move.length() == 5) ? PROMOTION_LETTERS.indexOf(Character.toLowerCase(move.charAt(4))) : 0;
+        if (promotion < 0) {
+            throw new IllegalArgumentException("Invalid promotion: " + move + ".");
+        }
+        String response;
+        synchronized (chessMatch) {
+            if (chessMatch.getCheckMate() || chessMatch.getStaleMate() || chessMatch.getDraw()) {
+                throw new ChessException("The game is over.");
+            }
+            chessMatch.performChessMove(source, target);
+            if (chessMatch.getPromoted() != null && promotion > 0) {
+                chessMatch.replacePromotedPiece(PROMOTIONS[promotion]);
+            }
+            response = "OK " + state(chessMatch.getSnapshot());
+        }
+        moveLatency.record(System.nanoTime() - start);
+        return response;
+    }
+
+    private ChessMatch match(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Missing game id.");
+        }
+        ChessMatch chessMatch = registry.get(parseId(args[1]));
+        if (chessMatch == null) {
+            throw new IllegalArgumentException("Unknown game.");
+        }
+        return chessMatch;
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid game id: " + id + ".");
+        }
+    }
+
+    private static String state(Snapshot snapshot) {
+        String status = snapshot.getCheckMate() ? "CHECKMATE" : snapshot.getStaleMate() ? "STALEMATE" : snapshot.getDraw() ? "DRAW"
+            : snapshot.getCheck() ? "CHECK" : "PLAYING";
+        return status + " " + snapshot.toFen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,64 @@
+package chess.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// histograma de latências sem travas, para percentis aproximados: cada
+// potência de dois de nanossegundos é dividida em 16 faixas lineares, com
+// erro relativo de até 1/16:
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 16;
+    private static final int SUB_BITS = 4;
+
+    private AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(0L, nanos)));
+    }
+
+    // faixa do valor: os 4 bits abaixo do mais significativo escolhem a
+    // subdivisão:
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // maior valor que cai na faixa:
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i=0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // percentil (0 a 100) em nanossegundos, ou 0 sem registros:
+    public long percentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1L, (long)Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i=0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length() - 1);
+    }
+}
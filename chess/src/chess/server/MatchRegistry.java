@@ -0,0 +1,40 @@
+package chess.server;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.ChessMatch;
+
+// partidas ativas do servidor, por identificador; os movimentos de cada
+// ChessMatch são feitos sincronizados nela mesma, já que várias conexões
+// podem jogar a mesma partida, e as leituras usam o retrato publicado, sem
+// trava:
+public class MatchRegistry {
+
+    private ConcurrentHashMap<Long, ChessMatch> matches = new ConcurrentHashMap<>();
+    private AtomicLong nextId = new AtomicLong(1);
+
+    public long create(ChessMatch chessMatch) {
+        long id = nextId.getAndIncrement();
+        matches.put(id, chessMatch);
+        return id;
+    }
+
+    // partida do identificador, ou null:
+    public ChessMatch get(long id) {
+        return matches.get(id);
+    }
+
+    public boolean remove(long id) {
+        return matches.remove(id) != null;
+    }
+
+    public int size() {
+        return matches.size();
+    }
+
+    public Set<Long> ids() {
+        return matches.keySet();
+    }
+}
@@ -0,0 +1,134 @@
+package chess.tablebase;
+
+import java.nio.ByteBuffer;
+
+import chess.Bitboards;
+import chess.Color;
+import chess.PieceType;
+
+// tabela de finais de um conjunto de peças ("KQvK", "KPvK", "KRvKP"...), com
+// um byte por posição. As peças ficam numa ordem fixa (brancas e depois
+// pretas, cada cor do Rei ao peão), e o índice é
+//
+//     lado a jogar (2) x Rei branco (32) x casa de cada outra peça (64)
+//
+// com o tabuleiro espelhado na horizontal quando o Rei branco está nas
+// colunas e-h (não há Roque nos finais), o que divide o tamanho por dois.
+// Valores: 0 empate, 1 posição ilegal e 2 + n para mate em n meios-lances,
+// vencido pelo lado a jogar se n é ímpar e perdido se n é par:
+class Table {
+
+    static final int DRAW = 0;
+    static final int ILLEGAL = 1;
+
+    // ordem das peças de cada cor e letras da assinatura:
+    static final PieceType[] ORDER = {PieceType.KING, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN};
+    private static final String LETTERS = "PNBRQK";
+
+    private String name;
+    private int pieces;
+    private PieceType[] types;
+    private Color[] colors;
+    private int size;
+    private ByteBuffer data;
+
+    Table(String name) {
+        this.name = name;
+        int v = name.indexOf('v');
+        if (v < 1 || name.charAt(0) != 'K' || v + 1 >= name.length() || name.charAt(v + 1) != 'K') {
+            throw new IllegalArgumentException("Invalid tablebase name: " + name + ".");
+        }
+        pieces = name.length() - 1;
+        if (pieces > Tablebase.MAX_PIECES) {
+            throw new IllegalArgumentException("Tablebases have at most " + Tablebase.MAX_PIECES + " pieces: " + name + ".");
+        }
+        types = new PieceType[pieces];
+        colors = new Color[pieces];
+        int j = 0;
+        for (int i=0; i < name.length(); i++) {
+            if (i == v) continue;
+            int type = LETTERS.indexOf(name.charAt(i));
+            if (type < 0) {
+                throw new IllegalArgumentException("Invalid tablebase name: " + name + ".");
+            }
+            types[j] = PieceType.values()[type];
+            colors[j] = (i < v) ? Color.WHITE : Color.BLACK;
+            j++;
+        }
+        size = 64 << (6 * (pieces - 1));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getPieces() {
+        return pieces;
+    }
+
+    PieceType getType(int i) {
+        return types[i];
+    }
+
+    Color getColor(int i) {
+        return colors[i];
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    void setData(ByteBuffer data) {
+        if (data.capacity() != size) {
+            throw new IllegalArgumentException("Tablebase " + name + " must have " + size + " bytes.");
+        }
+        this.data = data;
+    }
+
+    int get(int index) {
+        return data.get(index) & 0xFF;
+    }
+
+    // assinatura do conjunto de peças a partir das contagens por cor e tipo
+    // (índice PieceType.ordinal(), sem os Reis):
+    static String name(int[] white, int[] black) {
+        StringBuilder sb = new StringBuilder("K");
+        append(sb, white);
+        sb.append("vK");
+        append(sb, black);
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, int[] counts) {
+        for (int t=1; t < ORDER.length; t++) {
+            for (int k=0; k < counts[ORDER[t].ordinal()]; k++) {
+                sb.append(LETTERS.charAt(ORDER[t].ordinal()));
+            }
+        }
+    }
+
+/*===========================================================================*/
+// INDEX
+
+    // índice da posição com as casas na ordem das peças da tabela:
+    static int index(int[] squares, int pieces, Color sideToMove) {
+        int mirror = (Bitboards.column(squares[0]) >= 4) ? 7 : 0;
+        int king = squares[0] ^ mirror;
+        int index = ((sideToMove == Color.WHITE) ? 0 : 32) + Bitboards.row(king) * 4 + Bitboards.column(king);
+        for (int i=1; i < pieces; i++) {
+            index = (index << 6) | (squares[i] ^ mirror);
+        }
+        return index;
+    }
+
+    // casas das peças (com o Rei branco nas colunas a-d) e lado a jogar do
+    // índice:
+    static Color decode(int index, int[] squares, int pieces) {
+        for (int i=pieces - 1; i > 0; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        squares[0] = Bitboards.square((index & 31) >> 2, index & 3);
+        return (index >= 32) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,220 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceType;
+
+// consulta às tabelas de finais geradas por TablebaseGenerator, mapeadas em
+// memória a partir de arquivos "<peças>.tb". A consulta calcula o índice
+// direto dos bitboards, sem alocar objetos, e pode ser feita por várias
+// threads ao mesmo tempo.
+//
+// O resultado é um código: NOT_FOUND sem tabela para a posição (peças
+// demais, direitos de roque ou captura En-Passant possível), 0 para empate
+// e, nos demais casos, distância ao mate em meios-lances consultada com
+// isWin/isLoss/distance, do ponto de vista do lado a jogar:
+public class Tablebase {
+
+    public static final int MAX_PIECES = 4;
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = Table.DRAW;
+
+    // tabelas indexadas pela contagem de cada tipo de peça (exceto o Rei) de
+    // cada cor, em base 3 (até duas peças iguais por cor):
+    private static final int[] POWERS = {1, 3, 9, 27, 81, 243, 729, 2187, 6561, 19683};
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private Table[] tables = new Table[59049];
+    // sem tabelas, só o final de Reis sozinhos (empate) é conhecido:
+    private int maxPieces = 2;
+
+    public Tablebase() {
+    }
+
+    // carrega todas as tabelas do diretório:
+    public Tablebase(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.tb")) {
+            for (Path file : files) {
+                load(file);
+            }
+        }
+    }
+
+    public void load(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Table table = new Table(name.substring(0, name.length() - 3));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != table.getSize()) {
+                throw new IOException("Tablebase " + file + " must have " + table.getSize() + " bytes.");
+            }
+            table.setData(channel.map(FileChannel.MapMode.READ_ONLY, 0, table.getSize()));
+        }
+        add(table);
+    }
+
+    void add(Table table) {
+        int key = 0;
+        for (int i=1; i < table.getPieces(); i++) {
+            if (table.getType(i) != PieceType.KING) {
+                key += POWERS[digit(table.getColor(i), table.getType(i))];
+            }
+        }
+        tables[key] = table;
+        maxPieces = Math.max(maxPieces, table.getPieces());
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    // a tabela (na cor informada ou com as cores trocadas) está carregada?
+    boolean contains(int[] white, int[] black) {
+        return tables[key(white, black)] != null || tables[key(black, white)] != null;
+    }
+
+    private static int key(int[] white, int[] black) {
+        int key = 0;
+        for (int t=0; t < 5; t++) {
+            key += white[t] * POWERS[t] + black[t] * POWERS[5 + t];
+        }
+        return key;
+    }
+
+    private static int digit(Color color, PieceType type) {
+        return ((color == Color.WHITE) ? 0 : 5) + type.ordinal();
+    }
+
+    public static boolean isWin(int code) {
+        return code > Table.ILLEGAL && ((code - 2) & 1) == 1;
+    }
+
+    public static boolean isLoss(int code) {
+        return code > Table.ILLEGAL && ((code - 2) & 1) == 0;
+    }
+
+    // meios-lances até o mate:
+    public static int distance(int code) {
+        return code - 2;
+    }
+
+/*===========================================================================*/
+// PROBE
+
+    // código da posição da partida para o lado a jogar:
+    public int probe(ChessMatch chessMatch) {
+        ChessBoard board = chessMatch.getBoard();
+        int pieces = Long.bitCount(board.getOccupied());
+        if (pieces > maxPieces || chessMatch.getCastlingRights() != 0 || canCaptureEnPassant(chessMatch)) {
+            return NOT_FOUND;
+        }
+        if (pieces == 2) {
+            return DRAW;
+        }
+        int key = 0;
+        int swapped = 0;
+        for (int t=0; t < 5; t++) {
+            int white = Long.bitCount(board.pieces(Color.WHITE, TYPES[t]));
+            int black = Long.bitCount(board.pieces(Color.BLACK, TYPES[t]));
+            if (white > 2 || black > 2) {
+                return NOT_FOUND;
+            }
+            key += white * POWERS[t] + black * POWERS[5 + t];
+            swapped += black * POWERS[t] + white * POWERS[5 + t];
+        }
+        // sem a tabela nas cores da partida, usa a de cores trocadas, com o
+        // tabuleiro espelhado na vertical:
+        boolean flip = false;
+        Table table = tables[key];
+        if (table == null) {
+            table = tables[swapped];
+            flip = true;
+            if (table == null) {
+                return NOT_FOUND;
+            }
+        }
+        int flipMask = flip ? 56 : 0;
+        Color sideToMove = flip ? other(chessMatch.getCurrentPlayer()) : chessMatch.getCurrentPlayer();
+
+        // índice calculado como em Table.index, lendo as casas na ordem das
+        // peças da tabela diretamente dos bitboards:
+        int king = Long.numberOfTrailingZeros(board.pieces(flip ? Color.BLACK : Color.WHITE, PieceType.KING)) ^ flipMask;
+        int mirror = ((king & 7) >= 4) ? 7 : 0;
+        king ^= mirror;
+        int index = ((sideToMove == Color.WHITE) ? 0 : 32) + (king >> 3) * 4 + (king & 7);
+        long b = 0L;
+        for (int j=1; j < table.getPieces(); j++) {
+            if (table.getType(j) != table.getType(j - 1) || table.getColor(j) != table.getColor(j - 1)) {
+                b = board.pieces(flip ? other(table.getColor(j)) : table.getColor(j), table.getType(j));
+            }
+            int square = Long.numberOfTrailingZeros(b) ^ flipMask;
+            b &= b - 1;
+            index = (index << 6) | (square ^ mirror);
+        }
+        return table.get(index);
+    }
+
+    // as tabelas não consideram o En-Passant, relevante apenas se houver um
+    // peão ao lado do peão vulnerável:
+    private static boolean canCaptureEnPassant(ChessMatch chessMatch) {
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        if (vulnerable == null) {
+            return false;
+        }
+        int square = vulnerable.getSquare();
+        int column = Bitboards.column(square);
+        long adjacent = ((column > 0) ? Bitboards.bit(square - 1) : 0L) | ((column < 7) ? Bitboards.bit(square + 1) : 0L);
+        return (adjacent & chessMatch.getBoard().pieces(chessMatch.getCurrentPlayer(), PieceType.PAWN)) != 0;
+    }
+
+    // código de uma posição dada por listas de peças e casas, em qualquer
+    // ordem, usado pelo gerador para as posições após capturas e promoções;
+    // 'scratch' recebe as casas na ordem da tabela:
+    int probe(PieceType[] types, Color[] colors, int[] squares, int count, Color sideToMove, int[] scratch) {
+        if (count == 2) {
+            return DRAW;
+        }
+        int key = 0;
+        int swapped = 0;
+        for (int i=0; i < count; i++) {
+            if (types[i] != PieceType.KING) {
+                key += POWERS[digit(colors[i], types[i])];
+                swapped += POWERS[digit(other(colors[i]), types[i])];
+            }
+        }
+        boolean flip = false;
+        Table table = tables[key];
+        if (table == null) {
+            table = tables[swapped];
+            flip = true;
+            if (table == null) {
+                return NOT_FOUND;
+            }
+        }
+        int used = 0;
+        for (int j=0; j < table.getPieces(); j++) {
+            for (int i=0; i < count; i++) {
+                Color color = flip ? other(colors[i]) : colors[i];
+                if ((used & (1 << i)) == 0 && types[i] == table.getType(j) && color == table.getColor(j)) {
+                    used |= 1 << i;
+                    scratch[j] = squares[i] ^ (flip ? 56 : 0);
+                    break;
+                }
+            }
+        }
+        return table.get(Table.index(scratch, table.getPieces(), flip ? other(sideToMove) : sideToMove));
+    }
+
+    private static Color other(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,573 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import chess.Bitboards;
+import chess.Color;
+import chess.PieceType;
+
+// geração de tabelas de finais por análise retrógrada, de meio-lance em
+// meio-lance a partir dos mates:
+//
+// - na inicialização, cada posição legal é classificada: mate (perdida em 0),
+//   afogamento (empate) e, para capturas e promoções, que saem da tabela, o
+//   resultado é lido nas tabelas menores, geradas antes;
+// - a cada meio-lance n, os antecessores (desfazendo movimentos sem captura e
+//   sem promoção) de uma posição perdida em n passam a vencidos em n + 1; os
+//   de uma posição vencida em n são conferidos movimento a movimento e ficam
+//   perdidos em n + 1 se todos os seus movimentos levam a vitórias do
+//   oponente;
+// - o que sobra ao final é empate.
+//
+// Cada fase percorre o índice em blocos distribuídos entre as threads; as
+// escritas concorrentes de uma mesma fase gravam sempre o mesmo valor. O
+// En-Passant não é considerado:
+public class TablebaseGenerator {
+
+    private static final int BLOCK = 1 << 14;
+    private static final int MAX_DISTANCE = 253;
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    // valores das peças para escolher o lado mais forte como branco:
+    private static final int[] VALUES = {1, 3, 3, 5, 9};
+
+    private Path directory;
+    private int threads;
+    private Tablebase tablebase;
+    private Consumer<String> listener;
+
+    // as tabelas já existentes no diretório são carregadas e reaproveitadas:
+    public TablebaseGenerator(Path directory, int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least 1 thread.");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.threads = threads;
+        tablebase = new Tablebase(directory);
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    // observador notificado ao final de cada tabela gerada:
+    public void setListener(Consumer<String> listener) {
+        this.listener = listener;
+    }
+
+    // gera a tabela indicada ("KQvK") e, antes, as tabelas menores
+    // alcançadas por capturas e promoções que ainda não existam:
+    public void generate(String name) throws IOException, InterruptedException {
+        Table table = new Table(name);
+        int[] white = new int[5];
+        int[] black = new int[5];
+        for (int i=1; i < table.getPieces(); i++) {
+            if (table.getType(i) != PieceType.KING) {
+                int[] counts = (table.getColor(i) == Color.WHITE) ? white : black;
+                counts[table.getType(i).ordinal()]++;
+            }
+        }
+        generate(white, black);
+    }
+
+    private void generate(int[] white, int[] black) throws IOException, InterruptedException {
+        if (sum(white) + sum(black) == 0 || tablebase.contains(white, black)) {
+            return;
+        }
+        if (!stronger(white, black)) {
+            generate(black, white);
+            return;
+        }
+        for (int t=0; t < 5; t++) {
+            for (int side=0; side < 2; side++) {
+                int[] counts = (side == 0) ? white : black;
+                if (counts[t] == 0) continue;
+                // captura de uma peça:
+                counts[t]--;
+                generate(white.clone(), black.clone());
+                // promoção de um peão:
+                if (t == PieceType.PAWN.ordinal()) {
+                    for (PieceType promotion : PROMOTIONS) {
+                        counts[promotion.ordinal()]++;
+                        generate(white.clone(), black.clone());
+                        counts[promotion.ordinal()]--;
+                    }
+                }
+                counts[t]++;
+            }
+        }
+
+        Table table = new Table(Table.name(white, black));
+        long start = System.nanoTime();
+        byte[] values = new Builder(table).build();
+        Path file = directory.resolve(table.getName() + ".tb");
+        Files.write(file, values);
+        tablebase.load(file);
+        if (listener != null) {
+            listener.accept(table.getName() + ": " + summary(values) + ", " + ((System.nanoTime() - start) / 1_000_000) + " ms");
+        }
+    }
+
+    private static int sum(int[] counts) {
+        int sum = 0;
+        for (int c : counts) {
+            sum += c;
+        }
+        return sum;
+    }
+
+    // o lado com mais material fica com as brancas; no empate, o critério
+    // só precisa ser fixo:
+    private static boolean stronger(int[] white, int[] black) {
+        int balance = 0;
+        for (int t=0; t < 5; t++) {
+            balance += (white[t] - black[t]) * VALUES[t];
+        }
+        if (balance != 0) {
+            return balance > 0;
+        }
+        for (int t=4; t >= 0; t--) {
+            if (white[t] != black[t]) {
+                return white[t] > black[t];
+            }
+        }
+        return true;
+    }
+
+    private static String summary(byte[] values) {
+        long wins = 0;
+        long losses = 0;
+        long draws = 0;
+        int longest = 0;
+        for (byte v : values) {
+            int code = v & 0xFF;
+            if (code == Table.DRAW) draws++;
+            else if (Tablebase.isWin(code)) wins++;
+            else if (Tablebase.isLoss(code)) losses++;
+            if (code > Table.ILLEGAL) longest = Math.max(longest, Tablebase.distance(code));
+        }
+        return wins + " wins, " + losses + " losses, " + draws + " draws, longest mate " + longest + " plies";
+    }
+
+/*===========================================================================*/
+// BUILDER
+
+    // estado da geração de uma tabela:
+    private class Builder {
+
+        private Table table;
+        private int pieces;
+        private PieceType[] types;
+        private Color[] colors;
+        private int blackKing;
+
+        // resultado de cada posição (códigos de Table):
+        private byte[] values;
+        // menor distância de vitória por captura ou promoção (0 se nenhuma):
+        private byte[] exitWin;
+        // maior distância de derrota por captura ou promoção:
+        private byte[] exitLoss;
+        // derrota adiada até a distância gravada (0 se nenhuma):
+        private byte[] pending;
+        // posições que não podem ser perdidas (afogamento ou saída para
+        // empate):
+        private boolean[] noLoss;
+
+        // maior distância ainda por resolver em exitWin ou pending:
+        private AtomicInteger maxPending = new AtomicInteger();
+
+        Builder(Table table) {
+            this.table = table;
+            pieces = table.getPieces();
+            types = new PieceType[pieces];
+            colors = new Color[pieces];
+            for (int i=0; i < pieces; i++) {
+                types[i] = table.getType(i);
+                colors[i] = table.getColor(i);
+                if (types[i] == PieceType.KING && colors[i] == Color.BLACK) {
+                    blackKing = i;
+                }
+            }
+            int size = table.getSize();
+            values = new byte[size];
+            exitWin = new byte[size];
+            exitLoss = new byte[size];
+            pending = new byte[size];
+            noLoss = new boolean[size];
+        }
+
+        byte[] build() throws InterruptedException {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                run(pool, start -> initialize(start));
+                for (int ply=0; ply <= MAX_DISTANCE; ply++) {
+                    final int n = ply;
+                    AtomicInteger resolved = new AtomicInteger();
+                    if (n > 0) {
+                        run(pool, start -> resolveExits(start, n));
+                    }
+                    run(pool, start -> resolved.addAndGet(propagate(start, n)));
+                    if (resolved.get() == 0 && n >= maxPending.get()) {
+                        break;
+                    }
+                }
+            }
+            finally {
+                pool.shutdownNow();
+            }
+            return values;
+        }
+
+        // executa a tarefa para cada bloco do índice e espera todos:
+        private void run(ExecutorService pool, BlockTask task) throws InterruptedException {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int start=0; start < values.length; start += BLOCK) {
+                final int s = start;
+                tasks.add(() -> {
+                    task.run(s);
+                    return null;
+                });
+            }
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                try {
+                    f.get();
+                }
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException)e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+
+        // mates, afogamentos, posições ilegais e saídas da tabela:
+        private void initialize(int start) {
+            Scratch s = new Scratch(pieces);
+            for (int index=start; index < start + BLOCK && index < values.length; index++) {
+                Color side = Table.decode(index, s.squares, pieces);
+                if (!legal(s.squares, side)) {
+                    values[index] = Table.ILLEGAL;
+                    continue;
+                }
+                int count = generate(s.squares, side, s.moves);
+                int win = 0;
+                int loss = 0;
+                boolean inTable = false;
+                boolean draw = false;
+                for (int k=0; k < count; k++) {
+                    int move = s.moves[k];
+                    if (!isExit(move)) {
+                        inTable = true;
+                        continue;
+                    }
+                    int code = probeExit(s, side, move);
+                    if (Tablebase.isLoss(code)) {
+                        win = (win == 0) ? Tablebase.distance(code) + 1 : Math.min(win, Tablebase.distance(code) + 1);
+                    }
+                    else if (Tablebase.isWin(code)) {
+                        loss = Math.max(loss, Tablebase.distance(code) + 1);
+                    }
+                    else {
+                        draw = true;
+                    }
+                }
+                if (count == 0) {
+                    if (inCheck(s.squares, side)) {
+                        values[index] = 2;
+                    }
+                    else {
+                        noLoss[index] = true;
+                    }
+                    continue;
+                }
+                exitWin[index] = (byte)win;
+                maxPending.accumulateAndGet(win, Math::max);
+                exitLoss[index] = (byte)loss;
+                noLoss[index] = draw || win > 0;
+                // todos os movimentos saem da tabela para vitórias do
+                // oponente:
+                if (!inTable && !noLoss[index]) {
+                    defer(index, loss);
+                }
+            }
+        }
+
+        private void defer(int index, int ply) {
+            pending[index] = (byte)ply;
+            maxPending.accumulateAndGet(ply, Math::max);
+        }
+
+        // vitórias por captura ou promoção e derrotas adiadas que vencem
+        // neste meio-lance:
+        private void resolveExits(int start, int ply) {
+            for (int index=start; index < start + BLOCK && index < values.length; index++) {
+                if (values[index] != 0) continue;
+                if ((exitWin[index] & 0xFF) == ply || (pending[index] & 0xFF) == ply) {
+                    values[index] = (byte)(2 + ply);
+                }
+            }
+        }
+
+        // antecessores das posições resolvidas neste meio-lance:
+        private int propagate(int start, int ply) {
+            Scratch s = new Scratch(pieces);
+            Scratch check = new Scratch(pieces);
+            int resolved = 0;
+            for (int index=start; index < start + BLOCK && index < values.length; index++) {
+                if ((values[index] & 0xFF) != 2 + ply) continue;
+                resolved++;
+                Color side = Table.decode(index, s.squares, pieces);
+                Color mover = other(side);
+                long occupied = occupancy(s.squares);
+                for (int i=0; i < pieces; i++) {
+                    if (colors[i] != mover) continue;
+                    int to = s.squares[i];
+                    for (long b = predecessors(i, to, occupied); b != 0; b &= b - 1) {
+                        s.squares[i] = Long.numberOfTrailingZeros(b);
+                        int previous = Table.index(s.squares, pieces, mover);
+                        if (values[previous] == 0) {
+                            if ((ply & 1) == 0) {
+                                values[previous] = (byte)(2 + ply + 1);
+                            }
+                            else {
+                                checkLoss(previous, ply, check);
+                            }
+                        }
+                    }
+                    s.squares[i] = to;
+                }
+            }
+            return resolved;
+        }
+
+        // a posição fica perdida se todos os movimentos levam a vitórias do
+        // oponente já conhecidas:
+        private void checkLoss(int index, int ply, Scratch s) {
+            if (noLoss[index]) {
+                return;
+            }
+            Color side = Table.decode(index, s.squares, pieces);
+            int count = generate(s.squares, side, s.moves);
+            int longest = exitLoss[index] & 0xFF;
+            for (int k=0; k < count; k++) {
+                int move = s.moves[k];
+                if (isExit(move)) continue;
+                int i = move & 7;
+                int from = s.squares[i];
+                s.squares[i] = (move >>> 3) & 63;
+                int code = values[Table.index(s.squares, pieces, other(side))] & 0xFF;
+                s.squares[i] = from;
+                if (!Tablebase.isWin(code) || Tablebase.distance(code) > ply) {
+                    return;
+                }
+                longest = Math.max(longest, Tablebase.distance(code) + 1);
+            }
+            if (longest == ply + 1) {
+                values[index] = (byte)(2 + ply + 1);
+            }
+            else {
+                defer(index, longest);
+            }
+        }
+
+        // casas de onde a peça pode ter vindo sem capturar nem promover:
+        private long predecessors(int i, int to, long occupied) {
+            long empty = ~occupied;
+            switch (types[i]) {
+                case PAWN: {
+                    int back = (colors[i] == Color.WHITE) ? 8 : -8;
+                    int from = to + back;
+                    if (from < 0 || from > 63 || (occupied & Bitboards.bit(from)) != 0 || Bitboards.row(from) == 0 || Bitboards.row(from) == 7) {
+                        return 0L;
+                    }
+                    long b = Bitboards.bit(from);
+                    int doubleRow = (colors[i] == Color.WHITE) ? 4 : 3;
+                    if (Bitboards.row(to) == doubleRow && (occupied & Bitboards.bit(from + back)) == 0) {
+                        b |= Bitboards.bit(from + back);
+                    }
+                    return b;
+                }
+                case KNIGHT: return Bitboards.knightAttacks(to) & empty;
+                case BISHOP: return Bitboards.bishopAttacks(to, occupied) & empty;
+                case ROOK: return Bitboards.rookAttacks(to, occupied) & empty;
+                case QUEEN: return Bitboards.queenAttacks(to, occupied) & empty;
+                default: return Bitboards.kingAttacks(to) & empty;
+            }
+        }
+
+/*===========================================================================*/
+// MOVES
+
+        // movimentos legais: bits 0-2 peça, 3-8 destino, 9-11 peça capturada
+        // + 1 e 12-14 promoção (PieceType.ordinal() + 1):
+        private int generate(int[] squares, Color side, int[] moves) {
+            long occupied = occupancy(squares);
+            long own = 0L;
+            for (int i=0; i < pieces; i++) {
+                if (colors[i] == side) own |= Bitboards.bit(squares[i]);
+            }
+            long enemy = occupied & ~own;
+            int count = 0;
+            for (int i=0; i < pieces; i++) {
+                if (colors[i] != side) continue;
+                int from = squares[i];
+                long targets;
+                if (types[i] == PieceType.PAWN) {
+                    int forward = (side == Color.WHITE) ? -8 : 8;
+                    targets = Bitboards.pawnAttacks(side, from) & enemy;
+                    int one = from + forward;
+                    if ((occupied & Bitboards.bit(one)) == 0) {
+                        targets |= Bitboards.bit(one);
+                        int startRow = (side == Color.WHITE) ? 6 : 1;
+                        if (Bitboards.row(from) == startRow && (occupied & Bitboards.bit(one + forward)) == 0) {
+                            targets |= Bitboards.bit(one + forward);
+                        }
+                    }
+                }
+                else {
+                    targets = attacks(types[i], side, from, occupied) & ~own;
+                }
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = -1;
+                    for (int j=0; j < pieces; j++) {
+                        if (j != i && squares[j] == to) captured = j;
+                    }
+                    // o Rei adversário nunca é capturado em posição legal:
+                    if (captured >= 0 && types[captured] == PieceType.KING) continue;
+                    squares[i] = to;
+                    boolean legal = !inCheck(squares, side, captured, (occupied ^ Bitboards.bit(from)) | Bitboards.bit(to));
+                    squares[i] = from;
+                    if (!legal) continue;
+                    int move = i | (to << 3) | ((captured + 1) << 9);
+                    if (types[i] == PieceType.PAWN && (Bitboards.row(to) == 0 || Bitboards.row(to) == 7)) {
+                        for (PieceType promotion : PROMOTIONS) {
+                            moves[count++] = move | ((promotion.ordinal() + 1) << 12);
+                        }
+                    }
+                    else {
+                        moves[count++] = move;
+                    }
+                }
+            }
+            return count;
+        }
+
+        private boolean isExit(int move) {
+            return (move & (0x3F << 9)) != 0;
+        }
+
+        // resultado da posição após a captura ou promoção, na tabela menor:
+        private int probeExit(Scratch s, Color side, int move) {
+            int i = move & 7;
+            int to = (move >>> 3) & 63;
+            int captured = ((move >>> 9) & 7) - 1;
+            int promotion = (move >>> 12) & 7;
+            int count = 0;
+            for (int j=0; j < pieces; j++) {
+                if (j == captured) continue;
+                s.childTypes[count] = (j == i && promotion > 0) ? PieceType.values()[promotion - 1] : types[j];
+                s.childColors[count] = colors[j];
+                s.childSquares[count] = (j == i) ? to : s.squares[j];
+                count++;
+            }
+            int code = tablebase.probe(s.childTypes, s.childColors, s.childSquares, count, other(side), s.index);
+            if (code == Tablebase.NOT_FOUND) {
+                throw new IllegalStateException("Missing tablebase for a position after a capture or promotion in " + table.getName() + ".");
+            }
+            return code;
+        }
+
+        private long attacks(PieceType type, Color color, int square, long occupied) {
+            switch (type) {
+                case PAWN: return Bitboards.pawnAttacks(color, square);
+                case KNIGHT: return Bitboards.knightAttacks(square);
+                case BISHOP: return Bitboards.bishopAttacks(square, occupied);
+                case ROOK: return Bitboards.rookAttacks(square, occupied);
+                case QUEEN: return Bitboards.queenAttacks(square, occupied);
+                default: return Bitboards.kingAttacks(square);
+            }
+        }
+
+        // o Rei do lado está atacado, ignorando a peça 'captured' (-1 se
+        // nenhuma)?
+        private boolean inCheck(int[] squares, Color side, int captured, long occupied) {
+            int king = squares[(side == Color.WHITE) ? 0 : blackKing];
+            long target = Bitboards.bit(king);
+            for (int j=0; j < pieces; j++) {
+                if (colors[j] == side || j == captured) continue;
+                if ((attacks(types[j], colors[j], squares[j], occupied) & target) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean inCheck(int[] squares, Color side) {
+            return inCheck(squares, side, -1, occupancy(squares));
+        }
+
+        // peças em casas distintas, peões fora da primeira e última linhas e
+        // o lado que não joga fora de cheque:
+        private boolean legal(int[] squares, Color side) {
+            long occupied = 0L;
+            for (int i=0; i < pieces; i++) {
+                long b = Bitboards.bit(squares[i]);
+                if ((occupied & b) != 0) {
+                    return false;
+                }
+                occupied |= b;
+                if (types[i] == PieceType.PAWN && (Bitboards.row(squares[i]) == 0 || Bitboards.row(squares[i]) == 7)) {
+                    return false;
+                }
+            }
+            return !inCheck(squares, other(side));
+        }
+
+        private long occupancy(int[] squares) {
+            long occupied = 0L;
+            for (int i=0; i < pieces; i++) {
+                occupied |= Bitboards.bit(squares[i]);
+            }
+            return occupied;
+        }
+    }
+
+    // buffers de uma tarefa:
+    private static class Scratch {
+        int[] squares;
+        int[] moves = new int[256];
+        PieceType[] childTypes;
+        Color[] childColors;
+        int[] childSquares;
+        int[] index;
+
+        Scratch(int pieces) {
+            squares = new int[pieces];
+            childTypes = new PieceType[pieces];
+            childColors = new Color[pieces];
+            childSquares = new int[pieces];
+            index = new int[pieces];
+        }
+    }
+
+    private interface BlockTask {
+        void run(int start);
+    }
+
+    private static Color other(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,361 @@
+package chess.uci;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.Color;
+import chess.Fen;
+import chess.Move;
+import chess.engine.ParallelSearch;
+import chess.engine.Search;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.tablebase.Tablebase;
+
+// protocolo UCI sobre a busca: um comando por chamada de handle(), com a
+// busca de "go" numa thread própria para que "stop" e "isready" sejam
+// atendidos durante ela. A partida é reaproveitada entre comandos
+// "position": se a posição base é a mesma e a lista de lances só cresceu,
+// apenas os lances novos são jogados:
+public class UciEngine {
+
+    private static final String NAME = "JavaChess";
+    private static final String AUTHOR = "JavaChess authors";
+
+    // letras de promoção do UCI e as de replacePromotedPiece (o Cavalo é
+    // 'K'):
+    private static final String PROMOTION_LETTERS = "qrbn";
+    private static final String[] PROMOTIONS = {"Q", "R", "B", "K"};
+
+    // margem do tempo de relógio para a comunicação com a interface:
+    private static final long TIME_MARGIN = 50;
+
+    private PrintStream out;
+
+    private int hash = 16;
+    private int threads = 1;
+    private Tablebase tablebase;
+    private TranspositionTable table = new TranspositionTable(hash);
+
+    private ChessMatch chessMatch = new ChessMatch();
+    // posição base ("startpos" ou a FEN) e lances já jogados na partida:
+    private String base = "startpos";
+    private List<String> moves = new ArrayList<>();
+
+    private ParallelSearch search;
+    private Thread searchThread;
+    // em "go infinite", o resultado só é enviado depois de "stop":
+    private boolean infinite;
+    private volatile boolean stopRequested;
+
+    public UciEngine(PrintStream out) {
+        this.out = out;
+    }
+
+    public ChessMatch getChessMatch() {
+        return chessMatch;
+    }
+
+    // trata uma linha do protocolo; false em "quit":
+    public boolean handle(String line) {
+        String[] args = line.trim().split("\\s+");
+        switch (args[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default 16 min 1 max 4096");
+                send("option name Threads type spin default 1 min 1 max 256");
+                send("option name TablebasePath type string default <empty>");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                waitSearch();
+                setOption(args);
+                break;
+            case "ucinewgame":
+                waitSearch();
+                table.clear();
+                break;
+            case "position":
+                waitSearch();
+                position(args);
+                break;
+            case "go":
+                waitSearch();
+                go(args);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                stopSearch();
+                return false;
+            default:
+                // comandos desconhecidos são ignorados, como pede o protocolo:
+                break;
+        }
+        return true;
+    }
+
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+
+/*===========================================================================*/
+// OPTIONS
+
+    // "setoption name <nome> value <valor>":
+    private void setOption(String[] args) {
+        String name = null;
+        String value = null;
+        for (int i=1; i < args.length; i++) {
+            if (args[i].equals("name") && i + 1 < args.length) name = args[i + 1];
+            if (args[i].equals("value") && i + 1 < args.length) value = String.join(" ", java.util.Arrays.copyOfRange(args, i + 1, args.length));
+        }
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            switch (name) {
+                case "Hash":
+                    hash = Integer.parseInt(value);
+                    table = new TranspositionTable(hash);
+                    break;
+                case "Threads":
+                    threads = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "TablebasePath":
+                    tablebase = value.equals("<empty>") ? null : new Tablebase(Paths.get(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+        catch (IOException | IllegalArgumentException e) {
+            send("info string Invalid value for " + name + ": " + e.getMessage());
+        }
+    }
+
+/*===========================================================================*/
+// POSITION
+
+    // "position startpos|fen <FEN> [moves <lances>...]":
+    private void position(String[] args) {
+        int i = 1;
+        String newBase;
+        if (i < args.length && args[i].equals("startpos")) {
+            newBase = "startpos";
+            i++;
+        }
+        else if (i < args.length && args[i].equals("fen")) {
+            StringBuilder sb = new StringBuilder();
+            for (i++; i < args.length && !args[i].equals("moves"); i++) {
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(args[i]);
+            }
+            newBase = sb.toString();
+        }
+        else {
+            send("info string Invalid position command.");
+            return;
+        }
+        List<String> newMoves = new ArrayList<>();
+        if (i < args.length && args[i].equals("moves")) {
+            for (i++; i < args.length; i++) {
+                newMoves.add(args[i]);
+            }
+        }
+
+        // mesma base e lances anteriores como prefixo: só os novos são
+        // jogados; do contrário, a partida é recarregada:
+        boolean extended = newBase.equals(base) && newMoves.size() >= moves.size() && newMoves.subList(0, moves.size()).equals(moves);
+        try {
+            if (!extended) {
+                chessMatch.loadFen(newBase.equals("startpos") ? Fen.START_POSITION : newBase);
+                base = newBase;
+                moves.clear();
+            }
+            for (int k=moves.size(); k < newMoves.size(); k++) {
+                play(newMoves.get(k));
+                moves.add(newMoves.get(k));
+            }
+        }
+        catch (ChessException | IllegalArgumentException e) {
+            // posição inválida: a partida volta ao início, para que a próxima
+            // "position" a recarregue:
+            send("info string " + e.getMessage());
+            chessMatch.loadFen(Fen.START_POSITION);
+            base = "startpos";
+            moves.clear();
+        }
+    }
+
+    // lance em coordenadas ("e2e4", "e7e8q") jogado com performChessMove:
+    private void play(String move) {
+        if (move.length() < 4 || move.length() > 5) {
+            throw new IllegalArgumentException("Invalid move: " + move + ".");
+        }
+        ChessPosition source = new ChessPosition(move.charAt(0), move.charAt(1) - '0');
+        ChessPosition target = new ChessPosition(move.charAt(2), move.charAt(3) - '0');
+        chessMatch.performChessMove(source, target);
+        if (move.length() == 5 && chessMatch.getPromoted() != null) {
+            int promotion = PROMOTION_LETTERS.indexOf(move.charAt(4));
+            if (promotion < 0) {
+                throw new IllegalArgumentException("Invalid promotion: " + move + ".");
+            }
+            chessMatch.replacePromotedPiece(PROMOTIONS[promotion]);
+        }
+    }
+
+/*===========================================================================*/
+// GO
+
+    // "go [depth N] [movetime MS] [wtime MS] [btime MS] [winc MS] [binc MS]
+    // [movestogo N] [infinite]":
+    private void go(String[] args) {
+        int depth = Search.MAX_PLY - 1;
+        long moveTime = 0;
+        long wtime = -1;
+        long btime = -1;
+        long winc = 0;
+        long binc = 0;
+        int movesToGo = 30;
+        boolean inf = false;
+        for (int i=1; i < args.length; i++) {
+            String name = args[i];
+            switch (name) {
+                case "infinite": inf = true; continue;
+                case "depth": case "movetime": case "wtime": case "btime": case "winc": case "binc": case "movestogo": break;
+                default: continue;
+            }
+            // valor ausente ou inválido: o parâmetro é ignorado e o token
+            // seguinte é tratado normalmente:
+            if (i + 1 >= args.length) {
+                send("info string Missing value for " + name);
+                break;
+            }
+            long value;
+            try {
+                value = Long.parseLong(args[i + 1]);
+            }
+            catch (IllegalArgumentException e) {
+                send("info string Invalid value for " + name + ": " + args[i + 1]);
+                continue;
+            }
+            i++;
+            switch (name) {
+                case "depth": depth = (int) Math.max(1, Math.min(value, Search.MAX_PLY - 1)); break;
+                // tempo por lance nulo ou negativo significaria "sem limite":
+                case "movetime": if (value > 0) moveTime = value; break;
+                case "wtime": wtime = Math.max(0, value); break;
+                case "btime": btime = Math.max(0, value); break;
+                case "winc": winc = Math.max(0, value); break;
+                case "binc": binc = Math.max(0, value); break;
+                case "movestogo": movesToGo = (int) Math.max(1, Math.min(value, Integer.MAX_VALUE)); break;
+                default: break;
+            }
+        }
+
+        // tempo de relógio: uma fração do restante mais a maior parte do
+        // incremento, sem passar do restante menos a margem:
+        boolean white = chessMatch.getCurrentPlayer() == Color.WHITE;
+        long remaining = white ? wtime : btime;
+        long increment = white ? winc : binc;
+        long time = moveTime;
+        if (time <= 0 && remaining >= 0 && !inf) {
+            time = Math.max(1, Math.min(remaining / movesToGo + increment * 3 / 4, remaining - TIME_MARGIN));
+        }
+        // sem limite de profundidade nem de tempo, a busca é infinita e
+        // termina com "stop" (ou com o próximo comando que a espera):
+        if (depth == Search.MAX_PLY - 1 && time <= 0) {
+            inf = true;
+        }
+        final int maxDepth = depth;
+        final long timeMillis = inf ? 0 : time;
+
+        ParallelSearch s = new ParallelSearch(chessMatch, table, threads);
+        s.setTablebase(tablebase);
+        s.setListener(this::info);
+        synchronized (this) {
+            search = s;
+            infinite = inf;
+            stopRequested = false;
+        }
+        searchThread = new Thread(() -> {
+            SearchResult result = s.search(maxDepth, timeMillis);
+            // em "go infinite", esperar o "stop" antes de responder:
+            synchronized (this) {
+                while (infinite && !stopRequested) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        break;
+                    }
+                }
+            }
+            send("bestmove " + ((result.getBestMove() != 0) ? Move.toString(result.getBestMove()) : "0000"));
+        }, "uci-search");
+        searchThread.start();
+    }
+
+    private void info(SearchResult r) {
+        String score;
+        if (r.isMate()) {
+            int moves = (r.getScore() > 0) ? (Search.MATE - r.getScore() + 1) / 2 : -(Search.MATE + r.getScore()) / 2;
+            score = "mate " + moves;
+        }
+        else {
+            score = "cp " + r.getScore();
+        }
+        send("info depth " + r.getDepth() + " score " + score + " nodes " + r.getNodes() + " nps " + r.getNps() + " time " + (r.getNanos() / 1_000_000)
+            + " hashfull " + r.getHashFull() + " pv " + Move.toString(r.getBestMove()));
+    }
+
+    private void stopSearch() {
+        synchronized (this) {
+            stopRequested = true;
+            notifyAll();
+            if (search != null) {
+                search.stop();
+            }
+        }
+        waitSearch();
+    }
+
+    // espera a busca em andamento terminar (sem interrompê-la, a não ser em
+    // "go infinite", que só termina com "stop"):
+    private void waitSearch() {
+        Thread t = searchThread;
+        if (t == null) {
+            return;
+        }
+        synchronized (this) {
+            if (infinite) {
+                stopRequested = true;
+                notifyAll();
+                search.stop();
+            }
+        }
+        try {
+            t.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+        search = null;
+    }
+}